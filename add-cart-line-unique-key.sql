@@ -0,0 +1,34 @@
+-- Merge duplicate cart lines and enforce one row per (user, product, size, price)
+-- so cart adds can upsert with ON CONFLICT instead of read-then-write.
+
+BEGIN;
+
+-- Fold the quantity of every duplicate into the oldest row
+UPDATE cart_items c
+SET quantity = d.total_quantity
+FROM (
+    SELECT MIN(id) AS keep_id, SUM(quantity) AS total_quantity
+    FROM cart_items
+    GROUP BY user_id, product_id, size, price
+    HAVING COUNT(*) > 1
+) d
+WHERE c.id = d.keep_id;
+
+DELETE FROM cart_items c
+USING cart_items k
+WHERE c.user_id = k.user_id
+  AND c.product_id = k.product_id
+  AND c.size IS NOT DISTINCT FROM k.size
+  AND c.price IS NOT DISTINCT FROM k.price
+  AND c.id > k.id;
+
+ALTER TABLE cart_items
+    ADD CONSTRAINT uk_cart_items_line UNIQUE (user_id, product_id, size, price);
+
+COMMIT;
+
+-- Verify
+SELECT user_id, product_id, size, price, COUNT(*)
+FROM cart_items
+GROUP BY user_id, product_id, size, price
+HAVING COUNT(*) > 1;
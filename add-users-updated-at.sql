@@ -0,0 +1,16 @@
+-- Track when each user row last changed, so every node's registration filter can poll
+-- for users created or updated elsewhere (hibernate ddl-auto adds the column as well).
+
+BEGIN;
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+-- Existing rows are covered by the filter's full rebuild; backfill for completeness
+UPDATE users SET updated_at = created_at WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users(updated_at);
+
+COMMIT;
+
+-- Verify
+SELECT COUNT(*) AS users_without_updated_at FROM users WHERE updated_at IS NULL;
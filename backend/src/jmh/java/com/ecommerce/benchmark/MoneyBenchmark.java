@@ -0,0 +1,76 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order totals (line totals, subtotal, 8% tax, shipping) computed with Money against the
+ * BigDecimal arithmetic OrderService used before, which scaled every amount by
+ * BigDecimal.valueOf(0.08). Run with -prof gc to compare allocations per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final BigDecimal TAX_RATE = BigDecimal.valueOf(0.08);
+
+    @Param({"3", "20"})
+    private int lines;
+
+    private BigDecimal[] unitPrices;
+    private Money[] unitMoney;
+    private int[] quantities;
+    private BigDecimal shipping;
+    private Money shippingMoney;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        unitPrices = new BigDecimal[lines];
+        unitMoney = new Money[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            // Prices such as 149.50 or 1299.99, as stored in product_variants.price
+            unitPrices[i] = BigDecimal.valueOf(5_000 + random.nextInt(200_000), 2);
+            unitMoney[i] = Money.of(unitPrices[i]);
+            quantities[i] = 1 + random.nextInt(5);
+        }
+        shipping = new BigDecimal("49.00");
+        shippingMoney = Money.of(shipping);
+
+        // Both paths must agree to the paisa, or the comparison is meaningless
+        if (bigDecimalTotal().compareTo(moneyTotal().toBigDecimal()) != 0) {
+            throw new IllegalStateException("BigDecimal and Money totals differ: " + bigDecimalTotal() + " vs " + moneyTotal());
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal lineTotal = unitPrices[i].multiply(BigDecimal.valueOf(quantities[i])).setScale(2, RoundingMode.HALF_UP);
+            subtotal = subtotal.add(lineTotal);
+        }
+        BigDecimal tax = subtotal.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+        return subtotal.add(tax).add(shipping).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public Money moneyTotal() {
+        Money subtotal = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.plus(unitMoney[i].times(quantities[i]));
+        }
+        Money tax = subtotal.percentage(800, RoundingMode.HALF_UP);
+        return subtotal.plus(tax).plus(shippingMoney);
+    }
+}
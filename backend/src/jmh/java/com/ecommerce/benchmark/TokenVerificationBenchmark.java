@@ -0,0 +1,72 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.config.JWTConfigClass;
+import com.ecommerce.config.JwtUtils;
+import com.ecommerce.model.User;
+import com.ecommerce.service.TokenRevocationService;
+import com.ecommerce.service.TokenVerificationService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticating one request from its access token:
+ * - threeParses: what JwtAuthenticationFilter did before, validateJwtToken followed by
+ *   getUserIdFromJwtToken and getRoleFromJwtToken, each verifying the signature again;
+ * - uncached: TokenVerificationService with its cache disabled, one parse per request;
+ * - cached: TokenVerificationService for a token it has already verified.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    private JwtUtils jwtUtils;
+    private TokenVerificationService cachedService;
+    private TokenVerificationService uncachedService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JWTConfigClass config = new JWTConfigClass();
+        config.setSecret("myVerySecureSecretKeyThatIsLongEnoughForJWTHMACSHA256AlgorithmForTest");
+        config.setExpiration(900_000);
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtConfigClass", config);
+
+        // Revocation checks only read memory, so no repositories are needed
+        TokenRevocationService revocations = new TokenRevocationService(null, null, 900_000, 10_000);
+        cachedService = new TokenVerificationService(jwtUtils, revocations, 10_000);
+        uncachedService = new TokenVerificationService(jwtUtils, revocations, 0);
+
+        User user = new User();
+        user.setId(42L);
+        user.setRole(User.Role.USER);
+        token = jwtUtils.generateJwtToken(user);
+        if (cachedService.verify(token).isEmpty() || uncachedService.verify(token).isEmpty()) {
+            throw new IllegalStateException("Benchmark token does not verify");
+        }
+    }
+
+    @Benchmark
+    public void threeParses(Blackhole blackhole) {
+        blackhole.consume(jwtUtils.validateJwtToken(token));
+        blackhole.consume(Long.valueOf(jwtUtils.getUserIdFromJwtToken(token)));
+        blackhole.consume(User.Role.valueOf(jwtUtils.getRoleFromJwtToken(token)));
+    }
+
+    @Benchmark
+    public Object uncached() {
+        return uncachedService.verify(token);
+    }
+
+    @Benchmark
+    public Object cached() {
+        return cachedService.verify(token);
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecommerce.config;
+
+import com.ecommerce.exception.ServiceBusyException;
+import com.ecommerce.service.Bulkheads;
+import com.ecommerce.service.EndpointGroup;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs each API request inside its EndpointGroup's bulkhead, answering 503 with
+ * Retry-After when the bulkhead and its queue are full. An async request holds its
+ * slot until the response completes, like ConcurrencyLimitFilter's permit.
+ */
+@Component
+// After ConcurrencyLimitFilter, so shed requests never wait in a bulkhead queue
+@Order(1)
+@RequiredArgsConstructor
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final Bulkheads bulkheads;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointGroup group = EndpointGroup.of(request.getMethod(), request.getRequestURI());
+        try {
+            bulkheads.enter(group);
+        } catch (ServiceBusyException e) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"status\":503,\"error\":\"Service Busy\",\"message\":\"" + e.getMessage() + "\"}");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(bulkheads, group));
+                async = true;
+            }
+        } finally {
+            if (async) {
+                bulkheads.detach();
+            } else {
+                bulkheads.exit(group);
+            }
+        }
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+        private final Bulkheads bulkheads;
+        private final EndpointGroup group;
+        private boolean released;
+
+        private ReleasingListener(Bulkheads bulkheads, EndpointGroup group) {
+            this.bulkheads = bulkheads;
+            this.group = group;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                bulkheads.release(group);
+            }
+        }
+    }
+}
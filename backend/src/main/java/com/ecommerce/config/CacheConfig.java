@@ -12,6 +12,6 @@ public class CacheConfig {
 
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("products", "users");
+        return new ConcurrentMapCacheManager("products", "catalog", "users");
     }
 }
\ No newline at end of file
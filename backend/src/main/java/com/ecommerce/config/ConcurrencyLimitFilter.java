@@ -0,0 +1,106 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.ConcurrencyLimiter;
+import com.ecommerce.service.EndpointGroup;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sheds API requests beyond their EndpointGroup's adaptive concurrency limit with an
+ * immediate 503. Async requests hold their permit until the async work completes.
+ */
+@Component
+// After the security filter chain (-100), so rejections still carry CORS headers
+@Order(0)
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String BUSY_BODY =
+        "{\"status\":503,\"error\":\"Service Busy\",\"message\":\"Server is busy, please retry shortly\"}";
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointGroup group = EndpointGroup.of(request.getMethod(), request.getRequestURI());
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(group);
+        if (permit == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(BUSY_BODY);
+            return;
+        }
+
+        boolean async = false;
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(permit, response));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permit.release(failed);
+            }
+        }
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+        private final ConcurrencyLimiter.Permit permit;
+        private final HttpServletResponse response;
+        private boolean released;
+
+        private ReleasingListener(ConcurrencyLimiter.Permit permit, HttpServletResponse response) {
+            this.permit = permit;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private synchronized void release(boolean failed) {
+            if (!released) {
+                released = true;
+                permit.release(failed);
+            }
+        }
+    }
+}
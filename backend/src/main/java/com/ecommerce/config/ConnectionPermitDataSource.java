@@ -0,0 +1,133 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.MetricsSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes callers wait for one of a fixed number of permits before asking the pool for a
+ * connection, and gives the permit back when the connection is closed. With virtual
+ * threads there is no thread pool bounding how many callers reach Hikari at once, so
+ * this keeps the waiting in a fair semaphore, which parks virtual threads cheaply, and
+ * fails fast with a transient SQL exception once the acquire timeout is reached.
+ */
+public class ConnectionPermitDataSource extends DelegatingDataSource implements MetricsSource, AutoCloseable {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long acquireTimeoutMs;
+    private final LongAdder timeouts = new LongAdder();
+
+    public ConnectionPermitDataSource(DataSource target, int maxPermits, long acquireTimeoutMs) {
+        super(target);
+        this.maxPermits = maxPermits;
+        this.permits = new Semaphore(maxPermits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return permitted(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return permitted(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    // The wrapper is the bean Spring sees, so it has to pass shutdown on to the pool
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "connectionPermits";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxPermits", maxPermits);
+        metrics.put("inUse", maxPermits - permits.availablePermits());
+        metrics.put("waiting", permits.getQueueLength());
+        metrics.put("timeouts", timeouts.sum());
+        // Wrapping hides the pool's own metrics bean, so report them here
+        if (getTargetDataSource() instanceof MetricsSource pool) {
+            metrics.put(pool.metricsName(), pool.metrics());
+        }
+        return metrics;
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException("No database connection permit available within " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection permit", e);
+        }
+    }
+
+    private Connection permitted(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return releasingOnClose(connection);
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                    synchronized (closed) {
+                        if (closed[0]) {
+                            return null;
+                        }
+                        closed[0] = true;
+                    }
+                    try {
+                        connection.close();
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }
+                if ("unwrap".equals(method.getName()) && args[0] == Connection.class) {
+                    return proxy;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+    }
+}
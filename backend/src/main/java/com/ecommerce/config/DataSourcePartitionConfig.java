@@ -0,0 +1,48 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.EndpointGroup;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * With bulkhead.datasource.partitioned=true, replaces the single Hikari pool with one
+ * pool per EndpointGroup behind a PartitionedDataSource. Connection settings come from
+ * spring.datasource; each pool's size from bulkhead.&lt;group&gt;.pool-size. A group with
+ * pool-size 0 does no JDBC work and gets no pool; it would fall back to DEFAULT's.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bulkhead.datasource.partitioned", havingValue = "true")
+@Slf4j
+public class DataSourcePartitionConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public PartitionedDataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Map<EndpointGroup, HikariDataSource> partitions = new EnumMap<>(EndpointGroup.class);
+        for (EndpointGroup group : EndpointGroup.values()) {
+            int size = environment.getProperty("bulkhead." + group.propertyName() + ".pool-size", Integer.class, 2);
+            if (size <= 0 && group != EndpointGroup.DEFAULT) {
+                continue;
+            }
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            pool.setPoolName("pool-" + group.propertyName());
+            pool.setMaximumPoolSize(size);
+            pool.setMinimumIdle(Math.min(size, environment.getProperty("spring.datasource.hikari.minimum-idle", Integer.class, 1)));
+            pool.setConnectionTimeout(environment.getProperty("bulkhead.datasource.connection-timeout-ms", Long.class, 5000L));
+            pool.setIdleTimeout(environment.getProperty("spring.datasource.hikari.idle-timeout", Long.class, 300000L));
+            pool.setMaxLifetime(environment.getProperty("spring.datasource.hikari.max-lifetime", Long.class, 1200000L));
+            partitions.put(group, pool);
+        }
+        log.info("Using partitioned connection pools: {}", partitions.keySet());
+        return new PartitionedDataSource(partitions);
+    }
+}
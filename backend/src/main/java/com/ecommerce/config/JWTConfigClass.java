@@ -10,4 +10,5 @@ import org.springframework.stereotype.Component;
 public class JWTConfigClass {
     private String secret;
     private Integer expiration;
+    private Long refreshExpiration = 2592000000L;
 }
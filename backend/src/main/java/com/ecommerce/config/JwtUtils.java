@@ -3,53 +3,84 @@ package com.ecommerce.config;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import com.ecommerce.model.User;
 
 @Component
 public class JwtUtils {
 
+    // iat has second precision; revocation cutoffs need to order tokens within a second
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+
     @Autowired
     private JWTConfigClass jwtConfigClass;
 
+    // Built once; the key and parser are immutable and safe to share between threads
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtConfigClass.getSecret().getBytes());
+        Key key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtConfigClass.getSecret().getBytes());
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder().setSigningKey(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser;
+    }
+
+    /**
+     * Verifies the signature and expiry and returns the claims, in a single parse.
+     */
+    public Claims parseClaims(String token) {
+        return getParser().parseClaimsJws(token).getBody();
+    }
+    
+    /**
+     * When the token was issued, to the millisecond; tokens without iat_ms fall back to iat.
+     */
+    public static Instant issuedAt(Claims claims) {
+        Long issuedAtMs = claims.get(ISSUED_AT_MS_CLAIM, Long.class);
+        if (issuedAtMs != null) {
+            return Instant.ofEpochMilli(issuedAtMs);
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
     }
     
     public String generateJwtToken(User user) {
+        Date now = new Date();
         return Jwts.builder()
                 .setSubject(user.getId().toString())
                 .claim("role", user.getRole())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtConfigClass.getExpiration()))
+                .setIssuedAt(now)
+                .claim(ISSUED_AT_MS_CLAIM, now.getTime())
+                .setExpiration(new Date(now.getTime() + jwtConfigClass.getExpiration()))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public String getUserIdFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
     
     public String getRoleFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
+        return parseClaims(token).get("role", String.class);
     }
     
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
+            parseClaims(authToken);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
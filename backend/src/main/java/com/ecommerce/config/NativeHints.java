@@ -0,0 +1,78 @@
+package com.ecommerce.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.RegexPatternTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reflection, proxy and resource hints for the native image (mvn -Pnative) beyond what
+ * Spring AOT infers. The hints are applied at build time, so they cover every class in
+ * the model and dto packages as it exists then.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] ALL_MEMBERS = {
+        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+        MemberCategory.INVOKE_DECLARED_METHODS,
+        MemberCategory.DECLARED_FIELDS
+    };
+
+    // jjwt 0.11 finds its implementation by class name and its JSON support through ServiceLoader
+    private static final String[] JJWT_IMPL_CLASSES = {
+        "io.jsonwebtoken.impl.DefaultJwtBuilder",
+        "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+        "io.jsonwebtoken.impl.DefaultJwtParser",
+        "io.jsonwebtoken.impl.DefaultClaims",
+        "io.jsonwebtoken.impl.DefaultHeader",
+        "io.jsonwebtoken.impl.DefaultJwsHeader",
+        "io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver",
+        "io.jsonwebtoken.impl.io.RuntimeClasspathSerializerLocator",
+        "io.jsonwebtoken.jackson.io.JacksonSerializer",
+        "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // JPA entities and the DTOs Jackson reads and writes; Lombok generates their accessors
+        for (String packageName : new String[]{"com.ecommerce.model", "com.ecommerce.dto"}) {
+            for (Class<?> type : classesIn(packageName, classLoader)) {
+                hints.reflection().registerType(type, ALL_MEMBERS);
+            }
+        }
+
+        for (String className : JJWT_IMPL_CLASSES) {
+            hints.reflection().registerType(TypeReference.of(className), ALL_MEMBERS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+
+        // ConnectionPermitDataSource hands out JDK proxies of Connection
+        hints.proxies().registerJdkProxy(Connection.class);
+    }
+
+    // Every class in the package, including nested ones, which component scanning would skip
+    private static List<Class<?>> classesIn(String packageName, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return true;
+            }
+        };
+        scanner.addIncludeFilter(new RegexPatternTypeFilter(Pattern.compile(".*")));
+        List<Class<?>> classes = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(packageName)) {
+            classes.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.Bulkheads;
+import com.ecommerce.service.EndpointGroup;
+import com.ecommerce.service.MetricsSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes each connection request to the Hikari pool of the EndpointGroup the current
+ * thread is serving (see Bulkheads), so a group can only exhaust its own connections.
+ * Threads outside a request, such as schedulers and background pools, use the DEFAULT pool.
+ */
+public class PartitionedDataSource extends AbstractRoutingDataSource implements MetricsSource, AutoCloseable {
+
+    private final Map<EndpointGroup, HikariDataSource> partitions;
+
+    public PartitionedDataSource(Map<EndpointGroup, HikariDataSource> partitions) {
+        this.partitions = new EnumMap<>(partitions);
+        setTargetDataSources(new LinkedHashMap<>(partitions));
+        setDefaultTargetDataSource(partitions.get(EndpointGroup.DEFAULT));
+        setLenientFallback(true);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        EndpointGroup group = Bulkheads.currentGroup();
+        return group != null ? group : EndpointGroup.DEFAULT;
+    }
+
+    public int totalPoolSize() {
+        return partitions.values().stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+    }
+
+    // AutoCloseable, so ConnectionPermitDataSource passes shutdown on when it wraps this
+    @Override
+    public void close() {
+        partitions.values().forEach(HikariDataSource::close);
+    }
+
+    @Override
+    public String metricsName() {
+        return "connectionPools";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (Map.Entry<EndpointGroup, HikariDataSource> entry : partitions.entrySet()) {
+            Map<String, Object> poolMetrics = new LinkedHashMap<>();
+            poolMetrics.put("maximumPoolSize", entry.getValue().getMaximumPoolSize());
+            HikariPoolMXBean pool = entry.getValue().getHikariPoolMXBean();
+            if (pool != null) {
+                poolMetrics.put("active", pool.getActiveConnections());
+                poolMetrics.put("idle", pool.getIdleConnections());
+                poolMetrics.put("waiting", pool.getThreadsAwaitingConnection());
+            }
+            metrics.put(entry.getKey().propertyName(), poolMetrics);
+        }
+        return metrics;
+    }
+}
@@ -1,55 +1,99 @@
 package com.ecommerce.config;
 
-import org.springframework.context.annotation.Bean;
+import com.ecommerce.service.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class RateLimitConfig implements WebMvcConfigurer {
 
+    private final RateLimiter rateLimiter;
+    private final int trustedProxyHops;
+
+    public RateLimitConfig(RateLimiter rateLimiter,
+                           @Value("${rate-limit.trusted-proxy-hops:1}") int trustedProxyHops) {
+        this.rateLimiter = rateLimiter;
+        this.trustedProxyHops = trustedProxyHops;
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new RateLimitInterceptor())
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter, trustedProxyHops))
                 .addPathPatterns("/api/**");
     }
 
+    /**
+     * Applies the route's RateLimiter policy and reports it with the RateLimit-* headers
+     * from the IETF RateLimit header fields draft.
+     */
     public static class RateLimitInterceptor implements HandlerInterceptor {
-        private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-        private final int MAX_REQUESTS_PER_MINUTE = 100;
+        private final RateLimiter rateLimiter;
+        private final int trustedProxyHops;
+
+        public RateLimitInterceptor(RateLimiter rateLimiter, int trustedProxyHops) {
+            this.rateLimiter = rateLimiter;
+            this.trustedProxyHops = trustedProxyHops;
+        }
 
         @Override
         public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-            String clientIp = getClientIp(request);
-            String key = clientIp + "_" + (System.currentTimeMillis() / 60000); // Per minute window
-            
-            AtomicInteger count = requestCounts.computeIfAbsent(key, k -> new AtomicInteger(0));
-            
-            if (count.incrementAndGet() > MAX_REQUESTS_PER_MINUTE) {
+            // The request was already charged on its first dispatch
+            if (request.getDispatcherType() == DispatcherType.ASYNC) {
+                return true;
+            }
+            RateLimiter.Policy policy = rateLimiter.policyFor(request.getMethod(), request.getRequestURI());
+            long result = rateLimiter.acquire(policy, clientKey(policy, request));
+
+            response.setHeader("RateLimit-Policy", policy.getHeader());
+            response.setHeader("RateLimit-Limit", Integer.toString(policy.getBurst()));
+            if (result < 0) {
+                long retryAfter = Math.max(1, RateLimiter.ceilSeconds(-result));
+                response.setHeader("RateLimit-Remaining", "0");
+                response.setHeader("RateLimit-Reset", Long.toString(retryAfter));
+                response.setHeader("Retry-After", Long.toString(retryAfter));
                 response.setStatus(429); // Too Many Requests
                 response.getWriter().write("Rate limit exceeded");
                 return false;
             }
-            
-            // Clean old entries
-            requestCounts.entrySet().removeIf(entry -> 
-                !entry.getKey().endsWith("_" + (System.currentTimeMillis() / 60000)));
-            
+
+            response.setHeader("RateLimit-Remaining", Long.toString(result));
+            response.setHeader("RateLimit-Reset", Long.toString(policy.secondsUntilFull(result)));
             return true;
         }
 
+        // The user id the JWT filter put in the security context, or the client IP
+        private Object clientKey(RateLimiter.Policy policy, HttpServletRequest request) {
+            if (policy.isPerUser()) {
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication != null && authentication.getPrincipal() instanceof Long userId) {
+                    return userId;
+                }
+            }
+            return getClientIp(request);
+        }
+
+        // Each proxy appends the address it received the request from, so only the entries
+        // added by our own trustedProxyHops proxies are trustworthy; anything to their left
+        // was sent by the client. The entry the outermost trusted proxy appended is the client.
         private String getClientIp(HttpServletRequest request) {
             String xForwardedFor = request.getHeader("X-Forwarded-For");
-            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-                return xForwardedFor.split(",")[0].trim();
+            if (trustedProxyHops > 0 && xForwardedFor != null && !xForwardedFor.isEmpty()) {
+                String[] hops = xForwardedFor.split(",");
+                String client = hops[Math.max(0, hops.length - trustedProxyHops)].trim();
+                if (!client.isEmpty()) {
+                    return client;
+                }
             }
             return request.getRemoteAddr();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * R2DBC connection pool for the reactive catalog reads. It is separate from Hikari and
+ * read-only in use; Spring Boot's R2DBC auto-configuration is excluded so that no
+ * reactive transaction manager competes with the JPA one.
+ *
+ * The pool is only reachable through the DatabaseClient bean: a ConnectionFactory bean
+ * would make DataSourceAutoConfiguration back off, leaving JPA without a DataSource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogConfig implements DisposableBean {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient catalogDatabaseClient(@Value("${catalog.reactive.url:}") String url,
+                                                @Value("${spring.datasource.url}") String jdbcUrl,
+                                                @Value("${spring.datasource.username}") String username,
+                                                @Value("${spring.datasource.password}") String password,
+                                                @Value("${catalog.reactive.initial-size:2}") int initialSize,
+                                                @Value("${catalog.reactive.max-size:10}") int maxSize) {
+        // Same database as the JDBC pool unless a URL is given
+        String r2dbcUrl = url.isEmpty() ? jdbcUrl.replaceFirst("^jdbc:", "r2dbc:") : url;
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbcUrl).mutate()
+            .option(ConnectionFactoryOptions.USER, username)
+            .option(ConnectionFactoryOptions.PASSWORD, password)
+            .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+            .name("catalog-r2dbc")
+            .initialSize(initialSize)
+            .maxSize(maxSize)
+            .maxIdleTime(Duration.ofMinutes(5))
+            .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
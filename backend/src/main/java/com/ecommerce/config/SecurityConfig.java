@@ -1,8 +1,11 @@
 package com.ecommerce.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -19,6 +22,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import java.util.Arrays;
 
 @Configuration
+@Slf4j
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
@@ -26,9 +30,28 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    /**
+     * BCrypt with a cost chosen so one hash takes about auth.hashing.target-ms on this
+     * machine, never below the default of 10. Hashes made at a lower cost are upgraded
+     * on the next successful login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.hashing.bcrypt-strength:0}") int strength,
+                                           @Value("${auth.hashing.target-ms:250}") long targetMs) {
+        return new BCryptPasswordEncoder(strength > 0 ? strength : calibrateBcryptStrength(targetMs));
+    }
+
+    private static int calibrateBcryptStrength(long targetMs) {
+        new BCryptPasswordEncoder(4).encode("warm-up");
+        long start = System.nanoTime();
+        new BCryptPasswordEncoder(10).encode("calibration");
+        double millisAt10 = Math.max(1, (System.nanoTime() - start) / 1_000_000.0);
+
+        // Each cost step doubles the work
+        int strength = 10 + (int) Math.floor(Math.log(targetMs / millisAt10) / Math.log(2));
+        strength = Math.max(10, Math.min(14, strength));
+        log.info("BCrypt cost 10 takes {} ms, using cost {} for a {} ms target", Math.round(millisAt10), strength, targetMs);
+        return strength;
     }
 
     @Autowired
@@ -43,6 +66,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/products/**").permitAll()
+                        .requestMatchers("/api/guest-cart/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/reactive/products/**").permitAll()
                         .requestMatchers("/v3/api-docs/**").permitAll()
                         .requestMatchers("/swagger-ui/**").permitAll()
                         .requestMatchers("/swagger-ui.html").permitAll()
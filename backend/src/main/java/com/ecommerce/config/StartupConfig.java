@@ -0,0 +1,43 @@
+package com.ecommerce.config;
+
+import jakarta.servlet.Filter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.SecurityFilterChain;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The eager allow-list for the fast-startup profile (spring.main.lazy-initialization).
+ * Lazy beans with @Scheduled methods would never be scheduled until something else
+ * created them, and servlet filters and the security chain must exist before the first
+ * request, so those stay eager. startup.eager-beans adds bean names to the list.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final List<Class<?>> EAGER_TYPES = List.of(Filter.class, SecurityFilterChain.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans(Environment environment) {
+        Set<String> eagerNames = new HashSet<>(List.of(
+            environment.getProperty("startup.eager-beans", String[].class, new String[0])));
+        return (beanName, beanDefinition, beanType) ->
+            eagerNames.contains(beanName)
+                || EAGER_TYPES.stream().anyMatch(type -> type.isAssignableFrom(beanType))
+                || hasScheduledMethods(beanType);
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) (Method method) ->
+            AnnotatedElementUtils.hasAnnotation(method, Scheduled.class) ? Boolean.TRUE : null).isEmpty();
+    }
+}
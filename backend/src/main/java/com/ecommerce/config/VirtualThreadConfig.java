@@ -0,0 +1,54 @@
+package com.ecommerce.config;
+
+import com.ecommerce.util.VirtualThreads;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Extra wiring for spring.threads.virtual.enabled=true. Spring Boot itself moves Tomcat
+ * request handling, the application task executor (@Async) and the scheduler
+ * (@Scheduled) onto virtual threads on Java 21; our own executors follow the same flag
+ * through VirtualThreads. This adds the connection permit bridge in front of the pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionPermitPostProcessor(Environment environment) {
+        if (!VirtualThreads.isSupported()) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; running on platform threads",
+                Runtime.version().feature());
+        }
+        long acquireTimeoutMs = environment.getProperty("virtual-threads.connection-permits.acquire-timeout-ms", Long.class, 5000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionPermitDataSource) {
+                    return bean;
+                }
+                int permits = environment.getProperty("virtual-threads.connection-permits.max", Integer.class, poolSize(dataSource));
+                log.info("Bridging data source {} through {} connection permits", beanName, permits);
+                return new ConnectionPermitDataSource(dataSource, permits, acquireTimeoutMs);
+            }
+        };
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            return hikari.getMaximumPoolSize();
+        }
+        if (dataSource instanceof PartitionedDataSource partitioned) {
+            return partitioned.totalPoolSize();
+        }
+        return 10;
+    }
+}
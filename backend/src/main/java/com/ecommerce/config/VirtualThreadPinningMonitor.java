@@ -0,0 +1,103 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.MetricsSource;
+import com.ecommerce.util.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the JFR jdk.VirtualThreadPinned event in-process and logs where virtual
+ * threads blocked while pinned to their carrier (inside synchronized, or in native
+ * code), so blocking that defeats virtual threads shows up in the logs and on
+ * /api/admin/metrics instead of as unexplained latency.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor implements MetricsSource {
+
+    private static final int MAX_SITES = 100;
+
+    private final Duration threshold;
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final Map<String, AtomicLong> pinnedBySite = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${virtual-threads.pinning.threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!VirtualThreads.isSupported()) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+        log.info("Watching for virtual threads pinned longer than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+        String site = site(event);
+        if (pinnedBySite.size() < MAX_SITES || pinnedBySite.containsKey(site)) {
+            pinnedBySite.computeIfAbsent(site, key -> new AtomicLong()).incrementAndGet();
+        }
+        log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    // The first application frame, which is where the synchronized block or native call is
+    private static String site(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith("com.ecommerce.")) {
+                return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0).getMethod().getType().getName() + "." + frames.get(0).getMethod().getName();
+    }
+
+    @Override
+    public String metricsName() {
+        return "virtualThreadPinning";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("virtualThreads", VirtualThreads.isSupported());
+        metrics.put("thresholdMs", threshold.toMillis());
+        metrics.put("pinnedEvents", pinnedEvents.get());
+        Map<String, Long> sites = new LinkedHashMap<>();
+        pinnedBySite.forEach((site, count) -> sites.put(site, count.get()));
+        metrics.put("sites", sites);
+        return metrics;
+    }
+}
@@ -2,16 +2,27 @@ package com.ecommerce.controller;
 
 import com.ecommerce.dto.UserDTO;
 import com.ecommerce.model.User;
+import com.ecommerce.service.MetricsSource;
 import com.ecommerce.service.UserService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import org.springframework.web.bind.annotation.*;
 
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @RestController
@@ -21,6 +32,54 @@ import java.util.stream.Collectors;
 public class AdminController {
     
     private final UserService userService;
+    private final List<MetricsSource> metricsSources;
+    private final ConfigurableApplicationContext applicationContext;
+    
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Map<String, Object>>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        for (MetricsSource source : metricsSources) {
+            metrics.put(source.metricsName(), source.metrics());
+        }
+        return ResponseEntity.ok(metrics);
+    }
+    
+    /**
+     * Startup steps recorded by BufferingApplicationStartup, slowest first, with the
+     * total time from the start of the run to the end of the last step.
+     */
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> getStartupTimeline(@RequestParam(defaultValue = "50") int limit) {
+        if (!(applicationContext.getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return ResponseEntity.notFound().build();
+        }
+        StartupTimeline timeline = startup.getBufferedTimeline();
+        List<Map<String, Object>> steps = new ArrayList<>();
+        Instant end = timeline.getStartTime();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            if (event.getEndTime().isAfter(end)) {
+                end = event.getEndTime();
+            }
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("name", event.getStartupStep().getName());
+            step.put("id", event.getStartupStep().getId());
+            step.put("parentId", event.getStartupStep().getParentId());
+            step.put("startMs", Duration.between(timeline.getStartTime(), event.getStartTime()).toMillis());
+            step.put("durationMs", event.getDuration().toMillis());
+            Map<String, String> tags = new LinkedHashMap<>();
+            event.getStartupStep().getTags().forEach(tag -> tags.put(tag.getKey(), tag.getValue()));
+            step.put("tags", tags);
+            steps.add(step);
+        }
+        steps.sort(Comparator.comparingLong((Map<String, Object> step) -> (Long) step.get("durationMs")).reversed());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("startTime", timeline.getStartTime());
+        response.put("totalMs", Duration.between(timeline.getStartTime(), end).toMillis());
+        response.put("steps", steps.size());
+        response.put("slowest", steps.subList(0, Math.min(Math.max(limit, 0), steps.size())));
+        return ResponseEntity.ok(response);
+    }
     
     @GetMapping("/users")
     public ResponseEntity<List<UserDTO>> getAllUsers() {
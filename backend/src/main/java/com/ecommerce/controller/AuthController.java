@@ -6,17 +6,25 @@ import com.ecommerce.dto.LoginRequest;
 import com.ecommerce.dto.PhoneEmailResponse;
 import com.ecommerce.dto.SignupRequest;
 import com.ecommerce.model.User;
+import com.ecommerce.exception.ServiceBusyException;
+import com.ecommerce.exception.UnauthorizedException;
+import com.ecommerce.service.Bulkheads;
+import com.ecommerce.service.EndpointGroup;
+import com.ecommerce.service.GuestCartService;
+import com.ecommerce.service.LoginThrottle;
+import com.ecommerce.service.PasswordHashingService;
+import com.ecommerce.service.PhoneVerificationClient;
+import com.ecommerce.service.RefreshTokenService;
+import com.ecommerce.service.TokenRevocationService;
 import com.ecommerce.service.UserService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.util.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -27,27 +35,59 @@ public class AuthController {
     private UserService userService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private GuestCartService guestCartService;
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private PhoneVerificationClient phoneVerificationClient;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest,
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String guestCart) {
+        long lockedForMs = loginThrottle.lockedForMs(loginRequest.getUsername());
+        if (lockedForMs > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((lockedForMs + 999) / 1000))
+                    .body("Too many failed attempts. Please try again later.");
+        }
+
         User user = userService.findByPhoneNumber(loginRequest.getUsername())
                 .orElse(null);
 
-        if (user != null && passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        if (user != null && passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())) {
+            loginThrottle.recordSuccess(loginRequest.getUsername());
+            passwordHashingService.rehashIfNeeded(user, loginRequest.getPassword());
             String jwt = jwtUtils.generateJwtToken(user);
-            return ResponseEntity.ok(new JwtResponse(jwt, user.getId(), user.getName(), user.getPhoneNumber(), user.getEmail(), user.getCity(), user.getRole()));
+            JwtResponse body = new JwtResponse(jwt, user.getId(), user.getName(), user.getPhoneNumber(), user.getEmail(), user.getCity(), user.getRole());
+            body.setRefreshToken(refreshTokenService.issue(user));
+            if (StringUtils.hasText(guestCart)) {
+                try {
+                    guestCartService.mergeInto(user.getId(), guestCart);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to merge guest cart for user {}: {}", user.getId(), e.getMessage());
+                }
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.SET_COOKIE, guestCartService.clearCookie().toString())
+                        .body(body);
+            }
+            return ResponseEntity.ok(body);
         }
 
+        loginThrottle.recordFailure(loginRequest.getUsername(), user != null);
         return ResponseEntity.badRequest().body("Invalid credentials");
     }
 
@@ -56,42 +96,11 @@ public class AuthController {
         if (StringUtils.hasText(signupRequest.getPhoneEmailUrl())) {
             // Handle Phone Email verification signup
             try {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-                HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-                ResponseEntity<String> response = restTemplate.exchange(
-                        signupRequest.getPhoneEmailUrl(),
-                        HttpMethod.GET,
-                        entity,
-                        String.class
-                );
-
-                if (response.getStatusCode() == HttpStatus.OK) {
-                    PhoneEmailResponse phoneEmailResponse = objectMapper.readValue(response.getBody(), PhoneEmailResponse.class);
-                    
-                    // Verify phone numbers match
-                    if (!phoneEmailResponse.getUserPhoneNumber().equals(signupRequest.getPhoneNumber())) {
-                        return ResponseEntity.badRequest().body("Verified number doesn't match.");
-                    }
-                    
-                    // Check if verified phone number already exists
-                    if (userService.existsByPhoneNumber(phoneEmailResponse.getUserPhoneNumber())) {
-                        return ResponseEntity.badRequest().body("Number already registered. Please log in.");
-                    }
-                    
-                    // Create user after successful verification
-                    User user = new User(signupRequest.getName(), phoneEmailResponse.getUserPhoneNumber(),
-                            signupRequest.getEmail(), signupRequest.getCity(), signupRequest.getPassword());
-                    User savedUser = userService.createUser(user);
-                    
-                    String jwt = jwtUtils.generateJwtToken(savedUser);
-                    return ResponseEntity.ok(new JwtResponse(jwt, savedUser.getId(), savedUser.getName(), savedUser.getPhoneNumber(), savedUser.getEmail(), savedUser.getCity(), savedUser.getRole()));
-                } else {
-                    return ResponseEntity.badRequest().body("Verification failed");
-                }
+                return completeSignup(signupRequest, phoneVerificationClient.verify(signupRequest.getPhoneEmailUrl()));
+            } catch (ServiceBusyException e) {
+                throw e;
             } catch (Exception e) {
-                log.debug("Error fetching JSON: " + e.getMessage());
+                log.debug("Phone verification signup failed: " + e.getMessage());
                 return ResponseEntity.badRequest().body("Verification failed");
             }
         } else {
@@ -105,6 +114,73 @@ public class AuthController {
         }
     }
 
+    /**
+     * Same as /signup, but the servlet thread is released while the provider is called.
+     */
+    @PostMapping("/signup/async")
+    public CompletableFuture<ResponseEntity<?>> signupAsync(@RequestBody SignupRequest signupRequest) {
+        if (!StringUtils.hasText(signupRequest.getPhoneEmailUrl())) {
+            return CompletableFuture.completedFuture(signup(signupRequest));
+        }
+        // The continuation runs on a pool thread; keep its queries in the auth group's partition
+        EndpointGroup group = Bulkheads.currentGroup();
+        return phoneVerificationClient.verifyAsync(signupRequest.getPhoneEmailUrl())
+                .<ResponseEntity<?>>thenApply(verified -> Bulkheads.callAs(group, () -> completeSignup(signupRequest, verified)))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof ServiceBusyException busy) {
+                        throw busy;
+                    }
+                    log.debug("Phone verification signup failed: " + cause.getMessage());
+                    return ResponseEntity.badRequest().body("Verification failed");
+                });
+    }
+
+    private ResponseEntity<?> completeSignup(SignupRequest signupRequest, PhoneEmailResponse phoneEmailResponse) {
+        // Verify phone numbers match
+        if (!phoneEmailResponse.getUserPhoneNumber().equals(signupRequest.getPhoneNumber())) {
+            return ResponseEntity.badRequest().body("Verified number doesn't match.");
+        }
+        
+        // Check if verified phone number already exists
+        if (userService.existsByPhoneNumber(phoneEmailResponse.getUserPhoneNumber())) {
+            return ResponseEntity.badRequest().body("Number already registered. Please log in.");
+        }
+        
+        // Create user after successful verification
+        User user = new User(signupRequest.getName(), phoneEmailResponse.getUserPhoneNumber(),
+                signupRequest.getEmail(), signupRequest.getCity(), signupRequest.getPassword());
+        User savedUser = userService.createUser(user);
+        
+        String jwt = jwtUtils.generateJwtToken(savedUser);
+        JwtResponse body = new JwtResponse(jwt, savedUser.getId(), savedUser.getName(), savedUser.getPhoneNumber(), savedUser.getEmail(), savedUser.getCity(), savedUser.getRole());
+        body.setRefreshToken(refreshTokenService.issue(savedUser));
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest request) {
+        try {
+            RefreshTokenService.TokenPair pair = refreshTokenService.rotate(request.getRefreshToken());
+            User user = pair.user();
+            JwtResponse body = new JwtResponse(pair.accessToken(), user.getId(), user.getName(), user.getPhoneNumber(), user.getEmail(), user.getCity(), user.getRole());
+            body.setRefreshToken(pair.refreshToken());
+            return ResponseEntity.ok(body);
+        } catch (UnauthorizedException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody RefreshTokenRequest request) {
+        try {
+            refreshTokenService.revoke(request.getRefreshToken());
+        } catch (UnauthorizedException e) {
+            log.debug("Logout with unknown refresh token: {}", e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/test")
     public ResponseEntity<?> test() {
         return ResponseEntity.ok("Test endpoint working");
@@ -125,18 +201,31 @@ public class AuthController {
 
     @PostMapping("/change-password")
     public ResponseEntity<?> changePassword(@RequestBody ChangePasswordRequest request) {
+        // Checks the current password like login does, so it shares login's lockout
+        long lockedForMs = loginThrottle.lockedForMs(request.getPhoneNumber());
+        if (lockedForMs > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((lockedForMs + 999) / 1000))
+                    .body("Too many failed attempts. Please try again later.");
+        }
+
         try {
-            User user = userService.findByPhoneNumber(request.getPhoneNumber())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            User user = userService.findByPhoneNumber(request.getPhoneNumber()).orElse(null);
             
-            if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
+            if (user == null || !passwordHashingService.matches(request.getCurrentPassword(), user.getPassword())) {
+                loginThrottle.recordFailure(request.getPhoneNumber(), user != null);
                 return ResponseEntity.badRequest().body("Current password is incorrect");
             }
+            loginThrottle.recordSuccess(request.getPhoneNumber());
             
-            user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+            user.setPassword(passwordHashingService.encode(request.getNewPassword()));
             userService.saveUser(user);
+            // Sessions opened with the old password, including 30-day refresh tokens, end here
+            tokenRevocationService.revokeUser(user.getId());
             
             return ResponseEntity.ok("Password changed successfully");
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to change password");
         }
@@ -145,36 +234,21 @@ public class AuthController {
     @PostMapping("/verify-reset")
     public ResponseEntity<?> verifyReset(@RequestBody VerifyResetRequest request) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    request.getPhoneEmailUrl(),
-                    HttpMethod.GET,
-                    entity,
-                    String.class
-            );
-
-            if (response.getStatusCode() == HttpStatus.OK) {
-                PhoneEmailResponse phoneEmailResponse = objectMapper.readValue(response.getBody(), PhoneEmailResponse.class);
-                
-                // Verify phone numbers match
-                if (!phoneEmailResponse.getUserPhoneNumber().equals(request.getPhoneNumber())) {
-                    return ResponseEntity.badRequest().body("Verified number doesn't match.");
-                }
-                
-                // Check if user exists for password reset
-                if (!userService.existsByPhoneNumber(phoneEmailResponse.getUserPhoneNumber())) {
-                    return ResponseEntity.badRequest().body("Phone number not registered");
-                }
-                
-                return ResponseEntity.ok("Verification successful");
-            } else {
-                return ResponseEntity.badRequest().body("Verification failed");
+            PhoneEmailResponse phoneEmailResponse = phoneVerificationClient.verify(request.getPhoneEmailUrl());
+            
+            // Verify phone numbers match
+            if (!phoneEmailResponse.getUserPhoneNumber().equals(request.getPhoneNumber())) {
+                return ResponseEntity.badRequest().body("Verified number doesn't match.");
             }
+            
+            // Check if user exists for password reset
+            if (!userService.existsByPhoneNumber(phoneEmailResponse.getUserPhoneNumber())) {
+                return ResponseEntity.badRequest().body("Phone number not registered");
+            }
+            
+            return ResponseEntity.ok("Verification successful");
         } catch (Exception e) {
-            log.debug("Error fetching JSON: " + e.getMessage());
+            log.debug("Phone verification for reset failed: " + e.getMessage());
             return ResponseEntity.badRequest().body("Verification failed");
         }
     }
@@ -187,10 +261,13 @@ public class AuthController {
                 User user = userService.findByPhoneNumber(request.getPhoneNumber())
                     .orElseThrow(() -> new RuntimeException("User not found"));
                 
-                user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+                user.setPassword(passwordHashingService.encode(request.getNewPassword()));
                 userService.saveUser(user);
+                tokenRevocationService.revokeUser(user.getId());
                 
                 return ResponseEntity.ok("Password reset successfully");
+            } catch (ServiceBusyException e) {
+                throw e;
             } catch (Exception e) {
                 return ResponseEntity.badRequest().body("Failed to reset password");
             }
@@ -204,6 +281,13 @@ public class AuthController {
         }
     }
 
+    public static class RefreshTokenRequest {
+        private String refreshToken;
+        
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    }
+
     public static class ChangePasswordRequest {
         private String phoneNumber;
         private String currentPassword;
@@ -2,10 +2,9 @@ package com.ecommerce.controller;
 
 import com.ecommerce.dto.BatchCartRequest;
 import com.ecommerce.dto.CartItemDTO;
-import com.ecommerce.model.CartItem;
-import com.ecommerce.model.User;
+import com.ecommerce.dto.PriceQuote;
+import com.ecommerce.model.Money;
 import com.ecommerce.service.CartService;
-import com.ecommerce.service.UserService;
 import com.ecommerce.util.JWTTokenDetails;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -16,9 +15,8 @@ import org.springframework.web.bind.annotation.*;
 
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/cart")
@@ -27,63 +25,52 @@ import java.util.stream.Collectors;
 public class CartController {
     
     private final CartService cartService;
-    private final UserService userService;
     private final JWTTokenDetails jwtTokenDetails;
     
     @PostMapping("/add")
     public ResponseEntity<CartItemDTO> addToCart(@RequestBody AddToCartRequest request) {
         Long userId = jwtTokenDetails.getUserId();
-        User user = userService.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-
-        CartItem cartItem = cartService.addToCart(user, request.getProductId(), 
-            request.getQuantity(), request.getSize(), request.getPrice());
-        return ResponseEntity.ok(CartItemDTO.fromCartItem(cartItem));
+        CartItemDTO cartItem = cartService.addToCart(userId, request.getProductId(), 
+            request.getQuantity(), request.getSize());
+        return ResponseEntity.ok(cartItem);
     }
     
     @GetMapping
     public ResponseEntity<List<CartItemDTO>> getCartItems() {
         Long userId = jwtTokenDetails.getUserId();
-        User user = userService.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        List<CartItem> cartItems = cartService.getCartItems(user);
-        List<CartItemDTO> cartItemDTOs = cartItems.stream()
-            .map(CartItemDTO::fromCartItem)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(cartItemDTOs);
+        return ResponseEntity.ok(cartService.getCartItems(userId));
+    }
+    
+    @GetMapping("/quote")
+    public ResponseEntity<PriceQuote> quoteCart(@RequestParam(required = false) BigDecimal shippingCost) {
+        Long userId = jwtTokenDetails.getUserId();
+        Money shipping = shippingCost != null ? Money.of(shippingCost, RoundingMode.HALF_UP) : Money.ZERO;
+        return ResponseEntity.ok(cartService.quoteCart(userId, shipping));
     }
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> removeFromCart(@PathVariable Long id) {
-        cartService.removeFromCart(id);
+        cartService.removeFromCart(jwtTokenDetails.getUserId(), id);
         return ResponseEntity.noContent().build();
     }
     
     @DeleteMapping("/clear")
     public ResponseEntity<Void> clearCart() {
-        Long userId = jwtTokenDetails.getUserId();
-        User user = userService.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        cartService.clearCart(user);
+        cartService.clearCart(jwtTokenDetails.getUserId());
         return ResponseEntity.noContent().build();
     }
     
     @PutMapping("/{id}")
     public ResponseEntity<CartItemDTO> updateQuantity(@PathVariable Long id, 
             @RequestBody UpdateQuantityRequest request) {
-        CartItem updatedItem = cartService.updateQuantity(id, request.getQuantity());
-        return ResponseEntity.ok(CartItemDTO.fromCartItem(updatedItem));
+        CartItemDTO updatedItem = cartService.updateQuantity(jwtTokenDetails.getUserId(), id, request.getQuantity());
+        return ResponseEntity.ok(updatedItem);
     }
 
     @PostMapping("/batch")
     public ResponseEntity<List<CartItemDTO>> batchUpdate(@RequestBody BatchCartRequest request) {
         Long userId = jwtTokenDetails.getUserId();
-        List<CartItem> updatedItems = cartService.batchUpdate(userId, request.getOperations());
-        List<CartItemDTO> cartItemDTOs = updatedItems.stream()
-            .map(CartItemDTO::fromCartItem)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(cartItemDTOs);
+        return ResponseEntity.ok(cartService.batchUpdate(userId, request.getOperations()));
     }
     
     @Data
@@ -91,7 +78,6 @@ public class CartController {
         private Long productId;
         private Integer quantity;
         private String size;
-        private BigDecimal price;
     }
     
     @Data
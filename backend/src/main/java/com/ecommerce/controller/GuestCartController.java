@@ -0,0 +1,62 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.PriceQuote;
+import com.ecommerce.service.GuestCartService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Cart for visitors without an account. The cart is carried in the guest_cart cookie
+ * and priced from the in-memory price table; it is merged into cart_items on login.
+ */
+@RestController
+@RequestMapping("/api/guest-cart")
+@RequiredArgsConstructor
+public class GuestCartController {
+
+    private final GuestCartService guestCartService;
+
+    @GetMapping
+    public ResponseEntity<PriceQuote> getCart(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token) {
+        return ResponseEntity.ok(guestCartService.quote(token));
+    }
+
+    @PostMapping("/add")
+    public ResponseEntity<PriceQuote> addToCart(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token,
+            @RequestBody GuestCartItemRequest request) {
+        return withToken(guestCartService.add(token, request.getProductId(), request.getSize(), request.getQuantity()));
+    }
+
+    @PutMapping("/update")
+    public ResponseEntity<PriceQuote> updateQuantity(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token,
+            @RequestBody GuestCartItemRequest request) {
+        return withToken(guestCartService.update(token, request.getProductId(), request.getSize(), request.getQuantity()));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> clearCart() {
+        return ResponseEntity.noContent()
+            .header(HttpHeaders.SET_COOKIE, guestCartService.clearCookie().toString())
+            .build();
+    }
+
+    private ResponseEntity<PriceQuote> withToken(String token) {
+        return ResponseEntity.ok()
+            .header(HttpHeaders.SET_COOKIE, guestCartService.cookie(token).toString())
+            .body(guestCartService.quote(token));
+    }
+
+    @Data
+    public static class GuestCartItemRequest {
+        private Long productId;
+        private String size;
+        private Integer quantity;
+    }
+}
@@ -1,14 +1,21 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.CartCheckoutRequest;
 import com.ecommerce.dto.CreateOrderRequest;
 import com.ecommerce.dto.OrderResponse;
+import com.ecommerce.dto.OrderStatusEventDTO;
+import com.ecommerce.dto.ReorderResponse;
 import com.ecommerce.model.Order;
+import com.ecommerce.model.ProductSnapshot;
 import com.ecommerce.model.User;
+import com.ecommerce.service.OrderDocumentService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductSnapshotService;
 import com.ecommerce.service.ScheduledTaskService;
 import com.ecommerce.util.JWTTokenDetails;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 
@@ -16,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -24,52 +32,67 @@ import java.util.stream.Collectors;
 @PreAuthorize("hasRole('USER') or hasRole('ADMIN') or hasRole('SUPERVISOR')")
 public class OrderController {
     private final OrderService orderService;
+    private final OrderDocumentService orderDocumentService;
     private final ScheduledTaskService scheduledTaskService;
+    private final ProductSnapshotService productSnapshotService;
     private final JWTTokenDetails jwtTokenDetails;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERVISOR')")
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        List<OrderResponse> orders = orderService.getAllOrders().stream()
-            .map(OrderResponse::fromOrder)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(orders);
+        List<Order> orders = orderService.getAllOrders();
+        Map<String, ProductSnapshot> snapshots = productSnapshotService.resolveFor(orders);
+        return ResponseEntity.ok(orders.stream()
+            .map(order -> OrderResponse.fromOrder(order, snapshots))
+            .collect(Collectors.toList()));
     }
 
     @GetMapping("/my")
-    public ResponseEntity<List<OrderResponse>> getMyOrders() {
+    public ResponseEntity<String> getMyOrders() {
         Long userId = jwtTokenDetails.getUserId();
-        List<OrderResponse> orders = orderService.getOrdersByUserId(userId).stream()
-            .map(OrderResponse::fromOrder)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(orderDocumentService.getUserHistory(userId));
     }
 
     @GetMapping("/user")
-    public ResponseEntity<List<OrderResponse>> getOrdersByUserId() {
-        List<OrderResponse> orders = orderService.getOrdersByUserId(jwtTokenDetails.getUserId()).stream()
-            .map(OrderResponse::fromOrder)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<String> getOrdersByUserId() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(orderDocumentService.getUserHistory(jwtTokenDetails.getUserId()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
-        return orderService.getOrderById(id)
-            .map(order -> ResponseEntity.ok(OrderResponse.fromOrder(order)))
+    public ResponseEntity<String> getOrderById(@PathVariable Long id) {
+        return orderDocumentService.getDocument(id)
+            .map(document -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(document))
             .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<List<OrderStatusEventDTO>> getOrderTimeline(@PathVariable Long id) {
+        List<OrderStatusEventDTO> timeline = orderService.getStatusTimeline(id).stream()
+            .map(OrderStatusEventDTO::fromOrderStatusEvent)
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(timeline);
+    }
+
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@RequestBody CreateOrderRequest request) {
         Order order = orderService.createOrder(request);
-        return ResponseEntity.ok(OrderResponse.fromOrder(order));
+        return ResponseEntity.ok(toResponse(order));
     }
 
     @PostMapping("/create")
     public ResponseEntity<OrderResponse> createOrderAlternate(@RequestBody CreateOrderRequest request) {
         Order order = orderService.createOrder(request);
-        return ResponseEntity.ok(OrderResponse.fromOrder(order));
+        return ResponseEntity.ok(toResponse(order));
+    }
+
+    @PostMapping("/from-cart")
+    public ResponseEntity<OrderResponse> createOrderFromCart(@RequestBody CartCheckoutRequest request) {
+        Order order = orderService.createOrderFromCart(jwtTokenDetails.getUserId(), request);
+        return ResponseEntity.ok(toResponse(order));
     }
 
     @PutMapping("/{id}/status")
@@ -78,8 +101,8 @@ public class OrderController {
             @RequestBody StatusUpdateRequest request) {
         try {
             Order.OrderStatus status = Order.OrderStatus.valueOf(request.getStatus());
-            Order order = orderService.updateOrderStatus(id, status);
-            return ResponseEntity.ok(OrderResponse.fromOrder(order));
+            Order order = orderService.updateOrderStatus(id, status, jwtTokenDetails.getUserId());
+            return ResponseEntity.ok(toResponse(order));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -98,12 +121,25 @@ public class OrderController {
         try {
             Long userId = jwtTokenDetails.getUserId();
             Order order = orderService.cancelOrder(id, userId, request.getReason());
-            return ResponseEntity.ok(OrderResponse.fromOrder(order));
+            return ResponseEntity.ok(toResponse(order));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/{id}/reorder")
+    public ResponseEntity<ReorderResponse> reorder(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(orderService.reorder(id, jwtTokenDetails.getUserId()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private OrderResponse toResponse(Order order) {
+        return OrderResponse.fromOrder(order, productSnapshotService.resolveFor(List.of(order)));
+    }
+
     @Data
     public static class StatusUpdateRequest {
         private String status;
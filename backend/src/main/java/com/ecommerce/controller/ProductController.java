@@ -5,12 +5,10 @@ import com.ecommerce.model.Product;
 import com.ecommerce.model.ProductVariant;
 import com.ecommerce.dto.ProductDTO;
 import com.ecommerce.dto.ProductVariantDTO;
-import com.ecommerce.dto.CartItemDTO;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.service.StorefrontService;
+import com.ecommerce.util.JWTTokenDetails;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import java.util.ArrayList;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -28,6 +26,8 @@ import java.util.stream.Collectors;
 public class ProductController {
 
     private final ProductService productService;
+    private final StorefrontService storefrontService;
+    private final JWTTokenDetails jwtTokenDetails;
 
     @GetMapping
     public List<ProductDTO> getAllProducts() {
@@ -73,23 +73,7 @@ public class ProductController {
 
     @GetMapping("/with-cart")
     public ResponseEntity<ProductsWithCartResponse> getProductsWithCart() {
-        List<ProductDTO> products = productService.getAvailableProducts().stream()
-            .map(ProductDTO::fromProduct)
-            .collect(Collectors.toList());
-        
-        // Get cart items if user is authenticated
-        List<CartItemDTO> cartItems = new ArrayList<>();
-        try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-                // User is authenticated, get cart items
-                // This would need CartService injection
-            }
-        } catch (Exception e) {
-            // User not authenticated, return empty cart
-        }
-        
-        return ResponseEntity.ok(new ProductsWithCartResponse(products, cartItems));
+        return ResponseEntity.ok(storefrontService.getProductsWithCart(jwtTokenDetails.findUserId().orElse(null)));
     }
 
     @GetMapping("/{id}")
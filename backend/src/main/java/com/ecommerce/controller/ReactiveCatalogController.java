@@ -0,0 +1,63 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.model.Store;
+import com.ecommerce.repository.ReactiveCatalogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Read-only catalog endpoints served from R2DBC, mirroring the JPA ones under
+ * /api/products and /api/stores, with the same access rules: products are public and
+ * stores need a signed-in user. Handlers return Flux/Mono and hold no request thread
+ * while waiting on the database, which is why they have their own EndpointGroup
+ * (REACTIVE) with bulkhead and concurrency limits sized for open responses rather than
+ * threads; the R2DBC pool queues the actual queries. Spring MVC collects a Flux served as application/json
+ * into a list before writing the array; only application/x-ndjson is written one object
+ * per line as rows arrive, so clients that want streaming should ask for that.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogController {
+
+    private final ReactiveCatalogRepository reactiveCatalogRepository;
+
+    @GetMapping(value = "/products/available", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductDTO> getAvailableProducts() {
+        return reactiveCatalogRepository.findAvailableProducts();
+    }
+
+    @GetMapping("/products/{id}")
+    public Mono<ResponseEntity<ProductDTO>> getProductById(@PathVariable Long id) {
+        return reactiveCatalogRepository.findProductById(id)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // A Flux<String> would be written as concatenated raw text, not a JSON array
+    @GetMapping("/products/categories")
+    public Mono<List<String>> getCategories() {
+        return reactiveCatalogRepository.findDistinctCategories().collectList();
+    }
+
+    @GetMapping(value = "/stores", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Store> getAllStores() {
+        return reactiveCatalogRepository.findAllStores();
+    }
+
+    @GetMapping("/stores/{id}")
+    public Mono<ResponseEntity<Store>> getStoreById(@PathVariable Long id) {
+        return reactiveCatalogRepository.findStoreById(id)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
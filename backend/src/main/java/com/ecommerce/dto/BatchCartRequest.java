@@ -1,7 +1,7 @@
 package com.ecommerce.dto;
 
+import com.ecommerce.model.Money;
 import lombok.Data;
-import java.math.BigDecimal;
 import java.util.List;
 
 @Data
@@ -14,6 +14,6 @@ public class BatchCartRequest {
         private Long productId;
         private Integer quantity;
         private String size;
-        private BigDecimal price;
+        private Money price;
     }
 }
\ No newline at end of file
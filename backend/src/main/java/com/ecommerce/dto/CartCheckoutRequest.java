@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+// Checkout of the caller's server-side cart; the lines are read from cart_items
+@Data
+public class CartCheckoutRequest {
+    private Long addressId;
+    private String paymentMethod;
+    private String notes;
+    private BigDecimal shippingCost;
+    private String deliveryDate;
+}
@@ -1,10 +1,10 @@
 package com.ecommerce.dto;
 
 import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Money;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import java.math.BigDecimal;
 
 @Data
 @NoArgsConstructor
@@ -15,7 +15,7 @@ public class CartItemDTO {
     private ProductDTO product;
     private Integer quantity;
     private String size;
-    private BigDecimal price;
+    private Money price;
 
     public static CartItemDTO fromCartItem(CartItem cartItem) {
         CartItemDTO dto = new CartItemDTO();
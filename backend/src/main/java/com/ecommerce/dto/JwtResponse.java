@@ -4,6 +4,7 @@ import com.ecommerce.model.User;
 
 public class JwtResponse {
     private String token;
+    private String refreshToken;
     private String type = "Bearer";
     private Long id;
     private String name;
@@ -25,6 +26,9 @@ public class JwtResponse {
     public String getToken() { return token; }
     public void setToken(String token) { this.token = token; }
     
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
     
@@ -1,9 +1,13 @@
 package com.ecommerce.dto;
 
+import com.ecommerce.model.Money;
 import com.ecommerce.model.Order;
-import java.math.BigDecimal;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.ProductSnapshot;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class OrderResponse {
@@ -23,10 +27,10 @@ public class OrderResponse {
     private String shippingPhone;
     
     private List<OrderItemResponse> orderItems;
-    private BigDecimal subtotal;
-    private BigDecimal tax;
-    private BigDecimal shippingCost;
-    private BigDecimal totalAmount;
+    private Money subtotal;
+    private Money tax;
+    private Money shippingCost;
+    private Money totalAmount;
     
     private String status;
     private LocalDateTime orderDate;
@@ -43,9 +47,9 @@ public class OrderResponse {
         private String productImageUrl;
         private String productSize;
         private String productCategory;
-        private BigDecimal unitPrice;
+        private Money unitPrice;
         private Integer quantity;
-        private BigDecimal totalPrice;
+        private Money totalPrice;
 
         // Getters and Setters
         public Long getId() { return id; }
@@ -69,17 +73,25 @@ public class OrderResponse {
         public String getProductCategory() { return productCategory; }
         public void setProductCategory(String productCategory) { this.productCategory = productCategory; }
         
-        public BigDecimal getUnitPrice() { return unitPrice; }
-        public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+        public Money getUnitPrice() { return unitPrice; }
+        public void setUnitPrice(Money unitPrice) { this.unitPrice = unitPrice; }
         
         public Integer getQuantity() { return quantity; }
         public void setQuantity(Integer quantity) { this.quantity = quantity; }
         
-        public BigDecimal getTotalPrice() { return totalPrice; }
-        public void setTotalPrice(BigDecimal totalPrice) { this.totalPrice = totalPrice; }
+        public Money getTotalPrice() { return totalPrice; }
+        public void setTotalPrice(Money totalPrice) { this.totalPrice = totalPrice; }
     }
 
     public static OrderResponse fromOrder(Order order) {
+        return fromOrder(order, Collections.emptyMap());
+    }
+
+    /**
+     * Builds the response using pre-resolved product snapshots (keyed by snapshot id)
+     * for items that reference one.
+     */
+    public static OrderResponse fromOrder(Order order, Map<String, ProductSnapshot> snapshots) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setOrderNumber(order.getOrderNumber());
@@ -101,11 +113,8 @@ public class OrderResponse {
                 OrderItemResponse itemResponse = new OrderItemResponse();
                 itemResponse.setId(item.getId());
                 itemResponse.setProductId(item.getProductId());
-                itemResponse.setProductName(item.getProductName());
-                itemResponse.setProductDescription(item.getProductDescription());
-                itemResponse.setProductImageUrl(item.getProductImageUrl());
+                setProductDetails(itemResponse, item, snapshots.get(item.getProductSnapshotId()));
                 itemResponse.setProductSize(item.getProductSize());
-                itemResponse.setProductCategory(item.getProductCategory());
                 itemResponse.setUnitPrice(item.getUnitPrice());
                 itemResponse.setQuantity(item.getQuantity());
                 itemResponse.setTotalPrice(item.getTotalPrice());
@@ -127,6 +136,20 @@ public class OrderResponse {
         return response;
     }
 
+    private static void setProductDetails(OrderItemResponse itemResponse, OrderItem item, ProductSnapshot snapshot) {
+        if (snapshot != null) {
+            itemResponse.setProductName(snapshot.getName());
+            itemResponse.setProductDescription(snapshot.getDescription());
+            itemResponse.setProductImageUrl(snapshot.getImageUrl());
+            itemResponse.setProductCategory(snapshot.getCategory());
+        } else {
+            itemResponse.setProductName(item.getProductName());
+            itemResponse.setProductDescription(item.getProductDescription());
+            itemResponse.setProductImageUrl(item.getProductImageUrl());
+            itemResponse.setProductCategory(item.getProductCategory());
+        }
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -170,17 +193,17 @@ public class OrderResponse {
     public List<OrderItemResponse> getOrderItems() { return orderItems; }
     public void setOrderItems(List<OrderItemResponse> orderItems) { this.orderItems = orderItems; }
     
-    public BigDecimal getSubtotal() { return subtotal; }
-    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+    public Money getSubtotal() { return subtotal; }
+    public void setSubtotal(Money subtotal) { this.subtotal = subtotal; }
     
-    public BigDecimal getTax() { return tax; }
-    public void setTax(BigDecimal tax) { this.tax = tax; }
+    public Money getTax() { return tax; }
+    public void setTax(Money tax) { this.tax = tax; }
     
-    public BigDecimal getShippingCost() { return shippingCost; }
-    public void setShippingCost(BigDecimal shippingCost) { this.shippingCost = shippingCost; }
+    public Money getShippingCost() { return shippingCost; }
+    public void setShippingCost(Money shippingCost) { this.shippingCost = shippingCost; }
     
-    public BigDecimal getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    public Money getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Money totalAmount) { this.totalAmount = totalAmount; }
     
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -0,0 +1,32 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatusEvent;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEventDTO {
+    private Long id;
+    private Long orderId;
+    private String fromStatus;
+    private String toStatus;
+    private LocalDateTime at;
+    private Long actorUserId;
+    private String reason;
+
+    public static OrderStatusEventDTO fromOrderStatusEvent(OrderStatusEvent event) {
+        OrderStatusEventDTO dto = new OrderStatusEventDTO();
+        dto.setId(event.getId());
+        dto.setOrderId(event.getOrder().getId());
+        dto.setFromStatus(event.getFromStatus() != null ? event.getFromStatus().toString() : null);
+        dto.setToStatus(event.getToStatus().toString());
+        dto.setAt(event.getAt());
+        dto.setActorUserId(event.getActorUserId());
+        dto.setReason(event.getReason());
+        return dto;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Money;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class PriceQuote {
+    private List<Line> lines = new ArrayList<>();
+    private Money subtotal;
+    private Money tax;
+    private Money shippingCost;
+    private Money totalAmount;
+
+    @Data
+    @NoArgsConstructor
+    public static class Line {
+        private Long productId;
+        private String size;
+        private Integer quantity;
+        private Money unitPrice;
+        private Money totalPrice;
+        private boolean available;
+    }
+}
@@ -8,10 +8,19 @@ public class ProductsWithCartResponse {
     private List<ProductDTO> products;
     private List<CartItemDTO> cartItems;
     private Integer cartCount;
+    private List<Long> wishlistProductIds;
+    private UserPreferencesDTO preferences;
     
     public ProductsWithCartResponse(List<ProductDTO> products, List<CartItemDTO> cartItems) {
+        this(products, cartItems, List.of(), null);
+    }
+    
+    public ProductsWithCartResponse(List<ProductDTO> products, List<CartItemDTO> cartItems,
+                                    List<Long> wishlistProductIds, UserPreferencesDTO preferences) {
         this.products = products;
         this.cartItems = cartItems;
         this.cartCount = cartItems.size();
+        this.wishlistProductIds = wishlistProductIds;
+        this.preferences = preferences;
     }
-}
\ No newline at end of file
+}
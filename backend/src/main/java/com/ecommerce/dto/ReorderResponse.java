@@ -0,0 +1,25 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderResponse {
+    private List<CartItemDTO> cartItems;
+    private List<UnavailableItem> unavailableItems;
+
+    // An order line that could not be put back in the cart: the product or size is gone, or out of stock
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UnavailableItem {
+        private Long productId;
+        private String productName;
+        private String size;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.exception;
+
+public class PhoneVerificationException extends RuntimeException {
+    public PhoneVerificationException(String message) {
+        super(message);
+    }
+
+    public PhoneVerificationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.exception;
+
+/**
+ * A bounded resource is saturated and the request was shed instead of queued.
+ * Mapped to 503 with a Retry-After header.
+ */
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
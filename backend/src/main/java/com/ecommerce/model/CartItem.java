@@ -6,11 +6,12 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cart_items_line", columnNames = {"user_id", "product_id", "size", "price"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,13 +35,13 @@ public class CartItem {
 
     private String size;
 
-    private BigDecimal price;
+    private Money price;
     
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
-    public CartItem(User user, Product product, Integer quantity, String size, BigDecimal price) {
+    public CartItem(User user, Product product, Integer quantity, String size, Money price) {
         this.user = user;
         this.product = product;
         this.quantity = quantity;
@@ -0,0 +1,121 @@
+package com.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of money in integer paise. Arithmetic is exact long math;
+ * the only lossy operation is {@link #percentage}, which takes an explicit rounding mode.
+ * Serializes to JSON as a 2-decimal number and maps to numeric columns via {@link MoneyConverter}.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long BASIS_POINTS = 10_000;
+
+    private final long paise;
+
+    private Money(long paise) {
+        this.paise = paise;
+    }
+
+    public static Money ofPaise(long paise) {
+        return paise == 0 ? ZERO : new Money(paise);
+    }
+
+    public static Money of(BigDecimal amount, RoundingMode roundingMode) {
+        return ofPaise(amount.setScale(SCALE, roundingMode).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Converts an amount to whole paise, rounding a fractional paisa half up, so JSON
+     * input with more than two decimals is accepted the way the amount columns store it.
+     */
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return of(amount, RoundingMode.HALF_UP);
+    }
+
+    public long paise() {
+        return paise;
+    }
+
+    public Money plus(Money other) {
+        return ofPaise(Math.addExact(paise, other.paise));
+    }
+
+    public Money minus(Money other) {
+        return ofPaise(Math.subtractExact(paise, other.paise));
+    }
+
+    public Money times(long quantity) {
+        return ofPaise(Math.multiplyExact(paise, quantity));
+    }
+
+    /**
+     * Returns this amount scaled by basisPoints / 10000 (800 = 8%), rounded to whole paise.
+     */
+    public Money percentage(long basisPoints, RoundingMode roundingMode) {
+        return ofPaise(divide(Math.multiplyExact(paise, basisPoints), BASIS_POINTS, roundingMode));
+    }
+
+    public boolean isNegative() {
+        return paise < 0;
+    }
+
+    public boolean isZero() {
+        return paise == 0;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(paise, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(paise, other.paise);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && paise == other.paise);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(paise);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    // Integer division of a by a positive divisor with BigDecimal rounding semantics
+    static long divide(long a, long divisor, RoundingMode roundingMode) {
+        long quotient = Math.floorDiv(a, divisor);
+        long remainder = Math.floorMod(a, divisor);
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        long twice = remainder * 2;
+        boolean roundUp = switch (roundingMode) {
+            case FLOOR -> false;
+            case CEILING -> true;
+            case DOWN -> a < 0;
+            case UP -> a >= 0;
+            case HALF_UP -> a >= 0 ? twice >= divisor : twice > divisor;
+            case HALF_DOWN -> a >= 0 ? twice > divisor : twice >= divisor;
+            case HALF_EVEN -> twice > divisor || (twice == divisor && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return roundUp ? quotient + 1 : quotient;
+    }
+}
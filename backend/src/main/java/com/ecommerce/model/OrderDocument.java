@@ -0,0 +1,46 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized read model of an order: the rendered OrderResponse stored as JSONB.
+ * Written once at checkout and patched in place on status changes, so detail and
+ * history reads never hydrate Order/OrderItem entities.
+ */
+@Entity
+@Table(name = "order_documents", indexes = {
+    @Index(name = "idx_order_documents_user_date", columnList = "user_id, order_date")
+})
+@Data
+@NoArgsConstructor
+public class OrderDocument {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private Order order;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_date")
+    private LocalDateTime orderDate;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private String document;
+}
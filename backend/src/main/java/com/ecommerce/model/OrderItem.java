@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
-import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 @Entity
 @Table(name = "order_items")
@@ -20,8 +20,12 @@ public class OrderItem {
     @ToString.Exclude
     private Order order;
 
-    // Product details at time of order (frozen)
+    // Product details at time of order (frozen). New items reference a shared
+    // ProductSnapshot; the inline name/description/image/category columns are only
+    // populated on items created before snapshots existed.
     private Long productId;
+    @Column(name = "product_snapshot_id", length = 64)
+    private String productSnapshotId;
     private String productName;
     private String productDescription;
     private String productImageUrl;
@@ -29,9 +33,9 @@ public class OrderItem {
     private String productCategory;
     
     // Price at time of order (frozen)
-    private BigDecimal unitPrice;
+    private Money unitPrice;
     private Integer quantity;
-    private BigDecimal totalPrice;
+    private Money totalPrice;
 
     public OrderItem(Product product, ProductVariant variant, Integer quantity) {
         this.productId = product.getId();
@@ -40,8 +44,8 @@ public class OrderItem {
         this.productImageUrl = product.getImageUrl();
         this.productSize = variant != null ? variant.getSize() : "";
         this.productCategory = product.getCategory();
-        this.unitPrice = variant != null ? variant.getPrice() : BigDecimal.ZERO;
+        this.unitPrice = variant != null ? Money.of(variant.getPrice(), RoundingMode.HALF_UP) : Money.ZERO;
         this.quantity = quantity;
-        this.totalPrice = this.unitPrice.multiply(BigDecimal.valueOf(quantity)).setScale(2, java.math.RoundingMode.HALF_UP);
+        this.totalPrice = this.unitPrice.times(quantity);
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only record of an order status transition. Rows are never updated;
+ * the (order_id, at) index serves an order's timeline as a single range scan.
+ */
+@Entity
+@Table(name = "order_status_events", indexes = {
+    @Index(name = "idx_order_status_events_order_at", columnList = "order_id, at")
+})
+@Data
+@NoArgsConstructor
+public class OrderStatusEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private Order order;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", columnDefinition = "VARCHAR(20)", updatable = false)
+    private Order.OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", columnDefinition = "VARCHAR(20)", nullable = false, updatable = false)
+    private Order.OrderStatus toStatus;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime at;
+
+    @Column(name = "actor_user_id", updatable = false)
+    private Long actorUserId;
+
+    @Column(updatable = false)
+    private String reason;
+
+    public OrderStatusEvent(Order order, Order.OrderStatus fromStatus, Order.OrderStatus toStatus,
+                            LocalDateTime at, Long actorUserId, String reason) {
+        this.order = order;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.at = at;
+        this.actorUserId = actorUserId;
+        this.reason = reason;
+    }
+}
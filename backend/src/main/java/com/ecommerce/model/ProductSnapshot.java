@@ -0,0 +1,66 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Product details frozen at checkout, stored once per distinct content.
+ * The id is a SHA-256 over name, description, image URL and category, so identical
+ * product data shared by many order items maps to a single row.
+ */
+@Entity
+@Table(name = "product_snapshots")
+@Data
+@NoArgsConstructor
+public class ProductSnapshot {
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    private String name;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(columnDefinition = "TEXT")
+    private String imageUrl;
+
+    private String category;
+
+    private LocalDateTime createdAt;
+
+    public ProductSnapshot(Product product) {
+        this.id = hashOf(product.getName(), product.getDescription(), product.getImageUrl(), product.getCategory());
+        this.name = product.getName();
+        this.description = product.getDescription();
+        this.imageUrl = product.getImageUrl();
+        this.category = product.getCategory();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Hex SHA-256 of the fields joined by the unit separator (U+001F), nulls as empty strings.
+     * Equivalent SQL: encode(sha256(convert_to(concat_ws(chr(31), coalesce(name, ''), ...), 'UTF8')), 'hex')
+     */
+    public static String hashOf(String name, String description, String imageUrl, String category) {
+        String content = String.join("\u001F",
+            nullToEmpty(name), nullToEmpty(description), nullToEmpty(imageUrl), nullToEmpty(category));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tokens consumed by one client under one rate limit policy during one minute, summed
+ * across nodes. Written only by JdbcRateLimitCounterStore; mapped so the schema is created.
+ */
+@Entity
+@Table(name = "rate_limit_counters", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_rate_limit_counters", columnNames = {"policy", "client_key", "window_start"})
+}, indexes = {
+    @Index(name = "idx_rate_limit_counters_window", columnList = "window_start")
+})
+@Data
+@NoArgsConstructor
+public class RateLimitCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String policy;
+
+    @Column(name = "client_key", nullable = false, length = 64)
+    private String clientKey;
+
+    // Minutes since the epoch
+    @Column(name = "window_start", nullable = false)
+    private Long windowStart;
+
+    @Column(nullable = false)
+    private Long consumed;
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Access tokens of the user issued before notBefore are rejected. Rows are only needed
+ * for one access-token lifetime; every node polls new rows into its in-memory filter.
+ */
+@Entity
+@Table(name = "token_revocations", indexes = {
+    @Index(name = "idx_token_revocations_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+public class TokenRevocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "not_before", nullable = false)
+    private LocalDateTime notBefore;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public TokenRevocation(Long userId, LocalDateTime notBefore) {
+        this.userId = userId;
+        this.notBefore = notBefore;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -66,6 +66,15 @@ public class User {
 
     private LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.now(), ZoneId.systemDefault());
 
+    // Polled by RegistrationFilter to pick up users created or changed on other nodes
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touchUpdatedAt() {
+        updatedAt = LocalDateTime.now();
+    }
+
     public User(String name, String userPhoneNumber, String email, String password) {
         this.name = name;
         this.email = email;
@@ -5,17 +5,38 @@ import com.ecommerce.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByUser(User user);
-    Optional<CartItem> findByUserAndProduct_IdAndSizeAndPrice(User user, Long productId, String size, java.math.BigDecimal price);
     void deleteByUser(User user);
     
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT c FROM CartItem c JOIN FETCH c.product p LEFT JOIN FETCH p.variants WHERE c.user.id = :userId ORDER BY c.id")
+    List<CartItem> findByUserIdWithProduct(@Param("userId") Long userId);
+    
+    // Copies an order's lines into the cart at today's variant prices; sizes that no longer
+    // exist or are out of stock are skipped (see OrderItemRepository.findUnavailableForReorder)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO cart_items (user_id, product_id, size, price, quantity, created_at) " +
+                   "SELECT :userId, oi.product_id, pv.size, pv.price, SUM(oi.quantity), now() " +
+                   "FROM order_items oi " +
+                   "JOIN product_variants pv ON pv.product_id = oi.product_id AND pv.size = oi.product_size " +
+                   "WHERE oi.order_id = :orderId AND pv.quantity > 0 " +
+                   "GROUP BY oi.product_id, pv.size, pv.price " +
+                   "ON CONFLICT (user_id, product_id, size, price) " +
+                   "DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity", nativeQuery = true)
+    int insertFromOrder(@Param("userId") Long userId, @Param("orderId") Long orderId);
+    
     @Modifying
     @Query("DELETE FROM CartItem c WHERE c.createdAt < :cutoffDate")
     int deleteByCreatedAtBefore(LocalDateTime cutoffDate);
@@ -0,0 +1,36 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.OrderDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderDocumentRepository extends JpaRepository<OrderDocument, Long> {
+
+    @Query(value = "SELECT CAST(document AS text) FROM order_documents WHERE order_id = :orderId", nativeQuery = true)
+    Optional<String> findDocumentByOrderId(@Param("orderId") Long orderId);
+
+    // Orders without a document (created before the read model existed) come back with a null document
+    @Query(value = "SELECT o.id, CAST(d.document AS text) FROM orders o " +
+                   "LEFT JOIN order_documents d ON d.order_id = o.id " +
+                   "WHERE o.user_id = :userId ORDER BY o.order_date DESC", nativeQuery = true)
+    List<Object[]> findHistoryByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_documents (order_id, user_id, order_date, document) " +
+                   "VALUES (:orderId, :userId, :orderDate, CAST(:document AS jsonb)) " +
+                   "ON CONFLICT (order_id) DO UPDATE SET document = EXCLUDED.document", nativeQuery = true)
+    int upsert(@Param("orderId") Long orderId, @Param("userId") Long userId,
+               @Param("orderDate") LocalDateTime orderDate, @Param("document") String document);
+
+    @Modifying
+    @Query(value = "UPDATE order_documents SET document = document || CAST(:patch AS jsonb) WHERE order_id = :orderId",
+           nativeQuery = true)
+    int patch(@Param("orderId") Long orderId, @Param("patch") String patch);
+}
@@ -1,11 +1,43 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.model.Money;
 import com.ecommerce.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderId(Long orderId);
-}
\ No newline at end of file
+    
+    @Query("SELECT oi.totalPrice FROM OrderItem oi WHERE oi.order.id = :orderId")
+    List<Money> findTotalPricesByOrderId(@Param("orderId") Long orderId);
+    
+    // One order line per cart (product, size), priced from the current variant; run after
+    // ProductSnapshotRepository.insertForCart so the snapshot ids exist
+    @Modifying
+    @Query(value = "INSERT INTO order_items (order_id, product_id, product_snapshot_id, product_size, " +
+                   "unit_price, quantity, total_price) " +
+                   "SELECT :orderId, c.product_id, " + ProductSnapshotRepository.SNAPSHOT_ID_SQL + ", pv.size, " +
+                   "pv.price, SUM(c.quantity), pv.price * SUM(c.quantity) " +
+                   "FROM cart_items c " +
+                   "JOIN products p ON p.id = c.product_id " +
+                   "JOIN product_variants pv ON pv.product_id = c.product_id AND pv.size = c.size " +
+                   "WHERE c.user_id = :userId " +
+                   "GROUP BY c.product_id, p.name, p.description, p.image_url, p.category, pv.size, pv.price " +
+                   "ORDER BY MIN(c.id)", nativeQuery = true)
+    int insertFromCart(@Param("orderId") Long orderId, @Param("userId") Long userId);
+    
+    
+    // (product_id, name, size, quantity) of the order's lines that CartItemRepository.insertFromOrder skips
+    @Query(value = "SELECT oi.product_id, COALESCE(ps.name, oi.product_name), oi.product_size, oi.quantity " +
+                   "FROM order_items oi " +
+                   "LEFT JOIN product_snapshots ps ON ps.id = oi.product_snapshot_id " +
+                   "LEFT JOIN product_variants pv ON pv.product_id = oi.product_id AND pv.size = oi.product_size " +
+                   "WHERE oi.order_id = :orderId AND (pv.id IS NULL OR pv.quantity <= 0) " +
+                   "ORDER BY oi.id", nativeQuery = true)
+    List<Object[]> findUnavailableForReorder(@Param("orderId") Long orderId);
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.OrderStatusEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+    List<OrderStatusEvent> findByOrder_IdOrderByAtAsc(Long orderId);
+}
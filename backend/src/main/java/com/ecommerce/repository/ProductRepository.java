@@ -5,8 +5,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Collection;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -17,6 +19,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByCategory(String category);
     
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants WHERE p.id IN :ids")
+    List<Product> findAllWithVariantsByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT DISTINCT p FROM Product p WHERE EXISTS (SELECT 1 FROM ProductVariant v WHERE v.product = p AND v.quantity > 0)")
     List<Product> findAvailableProducts();
     
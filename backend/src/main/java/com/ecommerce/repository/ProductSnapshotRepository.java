@@ -0,0 +1,33 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.ProductSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ProductSnapshotRepository extends JpaRepository<ProductSnapshot, String> {
+
+    // SQL form of ProductSnapshot.hashOf over a products row aliased p
+    String SNAPSHOT_ID_SQL = "encode(sha256(convert_to(concat_ws(chr(31), coalesce(p.name, ''), " +
+        "coalesce(p.description, ''), coalesce(p.image_url, ''), coalesce(p.category, '')), 'UTF8')), 'hex')";
+
+    @Modifying
+    @Query(value = "INSERT INTO product_snapshots (id, name, description, image_url, category, created_at) " +
+                   "VALUES (:id, :name, :description, :imageUrl, :category, :createdAt) " +
+                   "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("name") String name, @Param("description") String description,
+                       @Param("imageUrl") String imageUrl, @Param("category") String category,
+                       @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_snapshots (id, name, description, image_url, category, created_at) " +
+                   "SELECT DISTINCT " + SNAPSHOT_ID_SQL + ", p.name, p.description, p.image_url, p.category, now() " +
+                   "FROM cart_items c JOIN products p ON p.id = c.product_id " +
+                   "WHERE c.user_id = :userId " +
+                   "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int insertForCart(@Param("userId") Long userId);
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.ProductVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+
+    // Rows of (productId, size, price), in variant order within each product
+    @Query("SELECT v.product.id, v.size, v.price FROM ProductVariant v ORDER BY v.product.id, v.id")
+    List<Object[]> findAllPrices();
+    
+    // (product_id, size, requested, in stock) for cart lines whose variant is gone or short on stock
+    @Query(value = "SELECT c.product_id, c.size, SUM(c.quantity), MAX(pv.quantity) " +
+                   "FROM cart_items c " +
+                   "LEFT JOIN product_variants pv ON pv.product_id = c.product_id AND pv.size = c.size " +
+                   "WHERE c.user_id = :userId " +
+                   "GROUP BY c.product_id, c.size " +
+                   "HAVING MAX(pv.quantity) IS NULL OR MAX(pv.quantity) < SUM(c.quantity)", nativeQuery = true)
+    List<Object[]> findShortagesForCart(@Param("userId") Long userId);
+    
+    // Takes the cart's quantities out of stock; a variant without enough stock is left untouched,
+    // so callers compare the count against the number of cart (product, size) groups
+    @Modifying
+    @Query(value = "UPDATE product_variants pv SET quantity = pv.quantity - c.quantity " +
+                   "FROM (SELECT product_id, size, SUM(quantity) AS quantity FROM cart_items " +
+                   "      WHERE user_id = :userId GROUP BY product_id, size) c " +
+                   "WHERE pv.product_id = c.product_id AND pv.size = c.size AND pv.quantity >= c.quantity",
+           nativeQuery = true)
+    int decrementStockForCart(@Param("userId") Long userId);
+}
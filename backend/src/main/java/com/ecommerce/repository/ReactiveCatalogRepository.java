@@ -0,0 +1,108 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductVariantDTO;
+import com.ecommerce.model.Store;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking reads of products, product_variants and stores over R2DBC. Products are
+ * read joined with their variants, ordered by product, and folded into one ProductDTO
+ * per run of rows, so each product is emitted as soon as its last row arrives rather
+ * than after the whole result set is read.
+ */
+@Repository
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogRepository {
+
+    private static final String PRODUCT_SQL =
+        "SELECT p.id, p.name, p.description, p.image_url, p.category, " +
+        "pv.id AS variant_id, pv.size, pv.price, pv.quantity " +
+        "FROM products p LEFT JOIN product_variants pv ON pv.product_id = p.id ";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCatalogRepository(DatabaseClient catalogDatabaseClient) {
+        this.databaseClient = catalogDatabaseClient;
+    }
+
+    private record ProductRow(Long id, String name, String description, String imageUrl, String category,
+                              ProductVariantDTO variant) {
+    }
+
+    // Same products as ProductRepository.findAvailableProducts
+    public Flux<ProductDTO> findAvailableProducts() {
+        return products(databaseClient.sql(PRODUCT_SQL +
+                "WHERE EXISTS (SELECT 1 FROM product_variants v WHERE v.product_id = p.id AND v.quantity > 0) " +
+                "ORDER BY p.id, pv.id")
+            .map(ReactiveCatalogRepository::productRow)
+            .all());
+    }
+
+    public Mono<ProductDTO> findProductById(Long id) {
+        return products(databaseClient.sql(PRODUCT_SQL + "WHERE p.id = :id ORDER BY pv.id")
+            .bind("id", id)
+            .map(ReactiveCatalogRepository::productRow)
+            .all())
+            .next();
+    }
+
+    public Flux<String> findDistinctCategories() {
+        return databaseClient.sql("SELECT DISTINCT category FROM products WHERE category IS NOT NULL ORDER BY category")
+            .map(row -> row.get("category", String.class))
+            .all();
+    }
+
+    public Flux<Store> findAllStores() {
+        return databaseClient.sql("SELECT id, name, address, city, state, zip_code, phone, hours, is_active FROM stores ORDER BY id")
+            .map(ReactiveCatalogRepository::store)
+            .all();
+    }
+
+    public Mono<Store> findStoreById(Long id) {
+        return databaseClient.sql("SELECT id, name, address, city, state, zip_code, phone, hours, is_active FROM stores WHERE id = :id")
+            .bind("id", id)
+            .map(ReactiveCatalogRepository::store)
+            .one();
+    }
+
+    private static Flux<ProductDTO> products(Flux<ProductRow> rows) {
+        return rows.bufferUntilChanged(ProductRow::id).map(ReactiveCatalogRepository::toDTO);
+    }
+
+    private static ProductDTO toDTO(List<ProductRow> rows) {
+        ProductRow first = rows.get(0);
+        List<ProductVariantDTO> sizes = new ArrayList<>(rows.size());
+        for (ProductRow row : rows) {
+            if (row.variant() != null) {
+                sizes.add(row.variant());
+            }
+        }
+        return new ProductDTO(first.id(), first.name(), first.description(), first.imageUrl(), first.category(),
+            sizes, null, null, null);
+    }
+
+    private static ProductRow productRow(Readable row) {
+        Long variantId = row.get("variant_id", Long.class);
+        ProductVariantDTO variant = variantId == null ? null : new ProductVariantDTO(variantId,
+            row.get("size", String.class), row.get("price", BigDecimal.class), row.get("quantity", Integer.class));
+        return new ProductRow(row.get("id", Long.class), row.get("name", String.class), row.get("description", String.class),
+            row.get("image_url", String.class), row.get("category", String.class), variant);
+    }
+
+    private static Store store(Readable row) {
+        Boolean active = row.get("is_active", Boolean.class);
+        return new Store(row.get("id", Long.class), row.get("name", String.class), row.get("address", String.class),
+            row.get("city", String.class), row.get("state", String.class), row.get("zip_code", String.class),
+            row.get("phone", String.class), row.get("hours", String.class), active == null || active);
+    }
+}
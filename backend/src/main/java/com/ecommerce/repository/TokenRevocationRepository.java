@@ -0,0 +1,19 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    List<TokenRevocation> findByCreatedAtGreaterThanEqualOrderByIdAsc(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM TokenRevocation t WHERE t.notBefore < :cutoff")
+    int deleteByNotBeforeBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,7 +2,10 @@ package com.ecommerce.repository;
 
 import com.ecommerce.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 
@@ -15,4 +18,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     void deleteById(Long id);
     boolean existsByPhoneNumber(String phoneNumber);
     boolean existsByEmail(String email);
+    
+    // (phoneNumber, email) of all users, for RegistrationFilter
+    @Query("SELECT u.phoneNumber, u.email FROM User u")
+    List<Object[]> findRegistrationKeys();
+    
+    // (phoneNumber, email) of users created or changed since the given time, for RegistrationFilter
+    @Query("SELECT u.phoneNumber, u.email FROM User u WHERE u.updatedAt >= :since")
+    List<Object[]> findRegistrationKeysChangedSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
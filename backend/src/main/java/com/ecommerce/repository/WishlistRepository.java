@@ -3,6 +3,8 @@ package com.ecommerce.repository;
 import com.ecommerce.model.User;
 import com.ecommerce.model.Wishlist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +15,7 @@ public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
     List<Wishlist> findByUser(User user);
     Optional<Wishlist> findByUserAndProduct_Id(User user, Long productId);
     void deleteByUserAndProduct_Id(User user, Long productId);
+    
+    @Query("SELECT w.product.id FROM Wishlist w WHERE w.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fixed per-EndpointGroup bulkheads: each group may run maxConcurrent requests, and up
+ * to maxQueue more wait up to queueTimeoutMs for a slot; beyond that requests are
+ * rejected. A slow admin export can therefore use up the admin bulkhead but never the
+ * threads checkout runs on.
+ *
+ * The group of the request on the current thread is also what PartitionedDataSource
+ * routes connections by, when connection pool partitions are enabled. Async requests
+ * keep their slot until the response completes, and their continuations mark the
+ * thread they run on with {@link #callAs}.
+ */
+@Service
+@Slf4j
+public class Bulkheads implements MetricsSource {
+
+    private static final ThreadLocal<EndpointGroup> CURRENT_GROUP = new ThreadLocal<>();
+
+    private final Map<EndpointGroup, Bulkhead> bulkheads = new EnumMap<>(EndpointGroup.class);
+    private final boolean enabled;
+
+    public Bulkheads(Environment environment) {
+        this.enabled = environment.getProperty("bulkhead.enabled", Boolean.class, true);
+        for (EndpointGroup group : EndpointGroup.values()) {
+            String prefix = "bulkhead." + group.propertyName() + ".";
+            bulkheads.put(group, new Bulkhead(
+                environment.getProperty(prefix + "max-concurrent", Integer.class, 30),
+                environment.getProperty(prefix + "max-queue", Integer.class, 20),
+                environment.getProperty(prefix + "queue-timeout-ms", Long.class, 500L)));
+        }
+    }
+
+    private static final class Bulkhead {
+        private final int maxConcurrent;
+        private final int maxQueue;
+        private final long queueTimeoutMs;
+        private final Semaphore slots;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder queueWaitNanos = new LongAdder();
+
+        private Bulkhead(int maxConcurrent, int maxQueue, long queueTimeoutMs) {
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.maxQueue = Math.max(0, maxQueue);
+            this.queueTimeoutMs = queueTimeoutMs;
+            this.slots = new Semaphore(this.maxConcurrent, true);
+        }
+    }
+
+    public static EndpointGroup currentGroup() {
+        return CURRENT_GROUP.get();
+    }
+
+    /**
+     * Takes a slot in the group's bulkhead, waiting in its queue if need be, and marks
+     * the current thread as working for the group until exit is called.
+     *
+     * @throws ServiceBusyException if the queue is full or the wait times out
+     */
+    public void enter(EndpointGroup group) throws InterruptedException {
+        Bulkhead bulkhead = bulkheads.get(group);
+        if (enabled && !bulkhead.slots.tryAcquire()) {
+            if (bulkhead.queued.incrementAndGet() > bulkhead.maxQueue) {
+                bulkhead.queued.decrementAndGet();
+                bulkhead.rejected.increment();
+                throw new ServiceBusyException("The " + group.propertyName() + " bulkhead is full", 1);
+            }
+            long start = System.nanoTime();
+            try {
+                if (!bulkhead.slots.tryAcquire(bulkhead.queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    bulkhead.timedOut.increment();
+                    throw new ServiceBusyException("Timed out waiting for the " + group.propertyName() + " bulkhead", 1);
+                }
+            } finally {
+                bulkhead.queued.decrementAndGet();
+                bulkhead.queueWaitNanos.add(System.nanoTime() - start);
+            }
+        }
+        bulkhead.accepted.increment();
+        CURRENT_GROUP.set(group);
+    }
+
+    public void exit(EndpointGroup group) {
+        detach();
+        release(group);
+    }
+
+    /**
+     * Clears the current thread's group but keeps the slot, for a request that went async.
+     */
+    public void detach() {
+        CURRENT_GROUP.remove();
+    }
+
+    /**
+     * Gives back the slot of a request whose thread was detached.
+     */
+    public void release(EndpointGroup group) {
+        if (enabled) {
+            bulkheads.get(group).slots.release();
+        }
+    }
+
+    /**
+     * Runs work for the group on the current thread, typically the continuation of an
+     * async request on a pool thread, so its connections come from the group's partition.
+     */
+    public static <T> T callAs(EndpointGroup group, Supplier<T> work) {
+        EndpointGroup previous = CURRENT_GROUP.get();
+        CURRENT_GROUP.set(group);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_GROUP.set(previous);
+            } else {
+                CURRENT_GROUP.remove();
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "bulkheads";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        for (Map.Entry<EndpointGroup, Bulkhead> entry : bulkheads.entrySet()) {
+            Bulkhead bulkhead = entry.getValue();
+            long accepted = bulkhead.accepted.sum();
+            Map<String, Object> groupMetrics = new LinkedHashMap<>();
+            groupMetrics.put("maxConcurrent", bulkhead.maxConcurrent);
+            groupMetrics.put("active", bulkhead.maxConcurrent - bulkhead.slots.availablePermits());
+            groupMetrics.put("maxQueue", bulkhead.maxQueue);
+            groupMetrics.put("queued", bulkhead.queued.get());
+            groupMetrics.put("accepted", accepted);
+            groupMetrics.put("rejected", bulkhead.rejected.sum());
+            groupMetrics.put("timedOut", bulkhead.timedOut.sum());
+            groupMetrics.put("avgQueueWaitMs", accepted > 0 ? bulkhead.queueWaitNanos.sum() / 1_000_000.0 / accepted : 0.0);
+            metrics.put(entry.getKey().propertyName(), groupMetrics);
+        }
+        return metrics;
+    }
+}
@@ -1,15 +1,12 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.BatchCartRequest;
-import com.ecommerce.model.CartItem;
-import com.ecommerce.model.Product;
-import com.ecommerce.model.User;
-import com.ecommerce.repository.CartItemRepository;
-import com.ecommerce.repository.ProductRepository;
-import com.ecommerce.repository.UserRepository;
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.PriceQuote;
+import com.ecommerce.model.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,84 +14,66 @@ import java.util.Optional;
 public class CartService {
     
     @Autowired
-    private CartItemRepository cartItemRepository;
+    private CartStore cartStore;
     
     @Autowired
-    private ProductRepository productRepository;
+    private PricingEngine pricingEngine;
     
-    @Autowired
-    private UserRepository userRepository;
-    
-    public CartItem addToCart(User user, Long productId, Integer quantity, String size, java.math.BigDecimal price) {
+    public CartItemDTO addToCart(Long userId, Long productId, Integer quantity, String size) {
         // Validate inputs
-        if (user == null) {
+        if (userId == null) {
             throw new RuntimeException("User is required");
         }
-        if (productId == null || productId <= 0) {
-            throw new RuntimeException("Valid product ID is required");
-        }
-        if (quantity == null || quantity <= 0) {
-            throw new RuntimeException("Valid quantity is required");
-        }
-        
-        Product product = productRepository.findById(productId)
-            .orElseThrow(() -> new RuntimeException("Product not found"));
-        Optional<CartItem> existingItem = cartItemRepository.findByUserAndProduct_IdAndSizeAndPrice(user, productId, size, price);
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + quantity);
-            return cartItemRepository.save(item);
-        } else {
-            CartItem newItem = new CartItem(user, product, quantity, size, price);
-            return cartItemRepository.save(newItem);
-        }
+        return cartStore.apply(userId, toAddMutation(productId, quantity, size));
     }
     
-    public List<CartItem> getCartItems(User user) {
-        return cartItemRepository.findByUser(user);
+    public List<CartItemDTO> getCartItems(Long userId) {
+        return cartStore.getItems(userId);
     }
     
-    public void removeFromCart(Long cartItemId) {
-        cartItemRepository.deleteById(cartItemId);
+    public PriceQuote quoteCart(Long userId, Money shippingCost) {
+        List<PriceQuote.Line> lines = new ArrayList<>();
+        for (CartStore.CartLine line : cartStore.getLines(userId)) {
+            lines.add(PricingEngine.line(line.getProductId(), line.getSize(), line.getQuantity()));
+        }
+        return pricingEngine.quote(lines, shippingCost);
     }
     
-    @Transactional
-    public void clearCart(User user) {
-        cartItemRepository.deleteByUser(user);
+    public void removeFromCart(Long userId, Long cartItemId) {
+        cartStore.apply(userId, CartStore.Mutation.removeLine(cartItemId));
+    }
+    
+    public void clearCart(Long userId) {
+        cartStore.clear(userId);
     }
 
-    @Transactional
-    public List<CartItem> batchUpdate(Long userId, List<BatchCartRequest.CartOperation> operations) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    /**
+     * Applies all operations to the in-memory cart in one pass; new lines are inserted
+     * together and quantity changes and removals go out with the next batched flush.
+     */
+    public List<CartItemDTO> batchUpdate(Long userId, List<BatchCartRequest.CartOperation> operations) {
+        List<CartStore.Mutation> mutations = new ArrayList<>(operations.size());
         for (BatchCartRequest.CartOperation op : operations) {
             switch (op.getAction()) {
                 case "add":
-                    addToCart(user, op.getProductId(), op.getQuantity(), op.getSize(), op.getPrice());
+                    mutations.add(toAddMutation(op.getProductId(), op.getQuantity(), op.getSize()));
                     break;
                 case "update":
-                    Optional<CartItem> existingItem = cartItemRepository
-                        .findByUserAndProduct_IdAndSizeAndPrice(user, op.getProductId(), op.getSize(), op.getPrice());
-                    if (existingItem.isPresent()) {
-                        updateQuantity(existingItem.get().getId(), op.getQuantity());
+                    if (op.getQuantity() == null || op.getQuantity() <= 0) {
+                        throw new RuntimeException("Valid quantity is required");
                     }
+                    toLineMutation(op, CartStore.Action.UPDATE).ifPresent(mutations::add);
                     break;
                 case "remove":
-                    Optional<CartItem> itemToRemove = cartItemRepository
-                        .findByUserAndProduct_IdAndSizeAndPrice(user, op.getProductId(), op.getSize(), op.getPrice());
-                    if (itemToRemove.isPresent()) {
-                        removeFromCart(itemToRemove.get().getId());
-                    }
+                    toLineMutation(op, CartStore.Action.REMOVE).ifPresent(mutations::add);
                     break;
             }
         }
         
-        return getCartItems(user);
+        return cartStore.apply(userId, mutations);
     }
 
-    @Transactional
-    public CartItem updateQuantity(Long cartItemId, Integer quantity) {
+    public CartItemDTO updateQuantity(Long userId, Long cartItemId, Integer quantity) {
         if (cartItemId == null || cartItemId <= 0) {
             throw new RuntimeException("Valid cart item ID is required");
         }
@@ -102,9 +81,33 @@ public class CartService {
             throw new RuntimeException("Valid quantity is required");
         }
         
-        CartItem item = cartItemRepository.findById(cartItemId)
-            .orElseThrow(() -> new RuntimeException("Cart item not found"));
-        item.setQuantity(quantity);
-        return cartItemRepository.save(item);
+        return cartStore.apply(userId, CartStore.Mutation.updateLine(cartItemId, quantity));
+    }
+    
+    private CartStore.Mutation toAddMutation(Long productId, Integer quantity, String size) {
+        if (productId == null || productId <= 0) {
+            throw new RuntimeException("Valid product ID is required");
+        }
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Valid quantity is required");
+        }
+        
+        // Price and size come from the server-side price table, not from the client
+        String resolvedSize = pricingEngine.resolveSize(productId, size)
+            .orElseThrow(() -> new RuntimeException("Product not found"));
+        Money resolvedPrice = pricingEngine.requirePrice(productId, resolvedSize);
+        return CartStore.Mutation.add(productId, resolvedSize, resolvedPrice, quantity);
+    }
+    
+    // Addresses an existing line the way add would have created it; the client's price is
+    // only used when the product is no longer in the price table
+    private Optional<CartStore.Mutation> toLineMutation(BatchCartRequest.CartOperation op, CartStore.Action action) {
+        if (op.getProductId() == null) {
+            return Optional.empty();
+        }
+        String size = pricingEngine.resolveSize(op.getProductId(), op.getSize()).orElse(op.getSize());
+        Money price = pricingEngine.priceOf(op.getProductId(), size).orElse(op.getPrice());
+        int quantity = op.getQuantity() != null ? op.getQuantity() : 0;
+        return Optional.of(new CartStore.Mutation(action, null, op.getProductId(), size, price, quantity));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,671 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory, write-behind store of active users' carts.
+ *
+ * Reads are served from memory. New lines are inserted immediately (clients address
+ * lines by id), while quantity changes and removals only mark the cart dirty and are
+ * written by a background flush in batches, coalescing repeated taps on the same line.
+ * A cart is flushed at most flushDelayMs after its first unflushed change, and
+ * synchronously by {@link #flush(Long)} before checkout.
+ *
+ * Carts are reloaded from cart_items when first touched on this node and again once
+ * they have been clean for reloadAfterMs, so a user whose requests move between ECS
+ * tasks sees at most that much staleness. A cart is never reloaded while one of its
+ * flushes is still uncommitted, and is only dropped from memory under its lock, after
+ * which requests holding the old instance retry with a fresh one.
+ */
+@Component
+@Slf4j
+public class CartStore {
+
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long flushDelayMs;
+    private final long reloadAfterMs;
+    private final long idleEvictMs;
+    private final Map<Long, UserCart> carts;
+
+    private static final String INSERT_LINES_SQL =
+        "INSERT INTO cart_items (user_id, product_id, size, price, quantity, created_at) " +
+        "SELECT ?, l.product_id, l.size, l.price, l.quantity, now() " +
+        "FROM unnest(?, ?, ?, ?) AS l(product_id, size, price, quantity) " +
+        "ON CONFLICT (user_id, product_id, size, price) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity " +
+        "RETURNING id, product_id, size, price, quantity";
+
+    public CartStore(CartItemRepository cartItemRepository,
+                     ProductRepository productRepository,
+                     JdbcTemplate jdbcTemplate,
+                     TransactionTemplate transactionTemplate,
+                     @Value("${cart.store.max-users:10000}") int maxUsers,
+                     @Value("${cart.store.flush-delay-ms:2000}") long flushDelayMs,
+                     @Value("${cart.store.reload-after-ms:30000}") long reloadAfterMs,
+                     @Value("${cart.store.idle-evict-ms:600000}") long idleEvictMs) {
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.flushDelayMs = flushDelayMs;
+        this.reloadAfterMs = reloadAfterMs;
+        this.idleEvictMs = idleEvictMs;
+        this.carts = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserCart> eldest) {
+                // Dirty carts are never dropped here; they are evicted after their flush. Runs
+                // under the carts monitor, so a cart that is locked right now is skipped too
+                if (size() <= maxUsers) {
+                    return false;
+                }
+                UserCart cart = eldest.getValue();
+                if (!cart.lock.tryLock()) {
+                    return false;
+                }
+                try {
+                    return cart.retireIfIdle();
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        };
+    }
+
+    public List<CartItemDTO> getItems(Long userId) {
+        UserCart cart = lockCart(userId);
+        try {
+            return cart.toDTOs();
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    public List<CartLine> getLines(Long userId) {
+        UserCart cart = lockCart(userId);
+        try {
+            List<CartLine> lines = new ArrayList<>();
+            for (CartLine line : cart.lines.values()) {
+                lines.add(line.copy());
+            }
+            return lines;
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the mutations to the user's cart in memory, in order, and returns the
+     * resulting cart. Lines that did not exist before are inserted with one statement;
+     * quantity changes and removals of existing lines are left to the write-behind flush.
+     */
+    public List<CartItemDTO> apply(Long userId, List<Mutation> mutations) {
+        UserCart cart = lockCart(userId);
+        try {
+            applyLocked(cart, mutations);
+            return cart.toDTOs();
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a single mutation and returns the line it touched, or null if the line is gone.
+     */
+    public CartItemDTO apply(Long userId, Mutation mutation) {
+        UserCart cart = lockCart(userId);
+        try {
+            applyLocked(cart, List.of(mutation));
+            CartLine line = mutation.lineId() != null
+                ? cart.lines.get(mutation.lineId())
+                : cart.linesByKey.get(LineKey.of(mutation.productId(), mutation.size(), mutation.price()));
+            return line != null ? line.toDTO(userId) : null;
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    private void applyLocked(UserCart cart, List<Mutation> mutations) {
+        Map<LineKey, Integer> newLines = new LinkedHashMap<>();
+        for (Mutation mutation : mutations) {
+            CartLine line;
+            LineKey key;
+            if (mutation.lineId() != null) {
+                line = cart.lines.get(mutation.lineId());
+                if (line == null) {
+                    throw new RuntimeException("Cart item not found");
+                }
+                key = line.key();
+            } else {
+                key = LineKey.of(mutation.productId(), mutation.size(), mutation.price());
+                line = cart.linesByKey.get(key);
+            }
+
+            switch (mutation.action()) {
+                case ADD -> {
+                    if (line != null) {
+                        cart.setQuantity(line, line.quantity + mutation.quantity());
+                    } else if (cart.restoreRemoved(key, mutation.quantity()) == null) {
+                        newLines.merge(key, mutation.quantity(), Integer::sum);
+                    }
+                }
+                case UPDATE -> {
+                    if (line != null) {
+                        cart.setQuantity(line, mutation.quantity());
+                    } else if (newLines.containsKey(key)) {
+                        newLines.put(key, mutation.quantity());
+                    }
+                }
+                case REMOVE -> {
+                    if (line != null) {
+                        cart.removeLine(line);
+                    } else {
+                        newLines.remove(key);
+                    }
+                }
+            }
+        }
+
+        if (!newLines.isEmpty()) {
+            insertLines(cart, newLines);
+        }
+    }
+
+    private void insertLines(UserCart cart, Map<LineKey, Integer> newLines) {
+        Set<Long> productIds = new HashSet<>();
+        for (LineKey key : newLines.keySet()) {
+            productIds.add(key.productId());
+        }
+        Map<Long, ProductDTO> products = new HashMap<>();
+        for (Product product : productRepository.findAllWithVariantsByIdIn(productIds)) {
+            products.put(product.getId(), ProductDTO.fromProduct(product));
+        }
+
+        int size = newLines.size();
+        Long[] lineProductIds = new Long[size];
+        String[] sizes = new String[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        Integer[] quantities = new Integer[size];
+        int i = 0;
+        for (Map.Entry<LineKey, Integer> entry : newLines.entrySet()) {
+            if (!products.containsKey(entry.getKey().productId())) {
+                throw new RuntimeException("Product not found");
+            }
+            lineProductIds[i] = entry.getKey().productId();
+            sizes[i] = entry.getKey().size();
+            prices[i] = entry.getKey().price() != null ? entry.getKey().price().toBigDecimal() : null;
+            quantities[i] = entry.getValue();
+            i++;
+        }
+
+        // A row the cart did not know about (added from another node, or by a concurrent request before
+        // this cart was loaded) absorbs the quantity, and the returned total becomes the in-memory value
+        List<CartLine> inserted = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_LINES_SQL);
+            ps.setLong(1, cart.userId);
+            ps.setArray(2, con.createArrayOf("bigint", lineProductIds));
+            ps.setArray(3, con.createArrayOf("varchar", sizes));
+            ps.setArray(4, con.createArrayOf("numeric", prices));
+            ps.setArray(5, con.createArrayOf("int4", quantities));
+            return ps;
+        }, (rs, rowNum) -> {
+            Long productId = rs.getLong("product_id");
+            BigDecimal price = rs.getBigDecimal("price");
+            return new CartLine(rs.getLong("id"), productId, rs.getString("size"),
+                price != null ? Money.of(price, RoundingMode.HALF_UP) : null,
+                rs.getInt("quantity"), products.get(productId));
+        });
+
+        for (CartLine line : inserted) {
+            cart.putLine(line);
+        }
+    }
+
+    @Transactional
+    public void clear(Long userId) {
+        UserCart cart = lockCart(userId);
+        try {
+            cartItemRepository.deleteByUserId(userId);
+            cart.reset();
+            cart.loadedAt = System.currentTimeMillis();
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the user's pending changes now. Joins the caller's transaction if there is one;
+     * if that transaction does not commit, the changes are put back for the next flush.
+     */
+    public void flush(Long userId) {
+        UserCart cart;
+        synchronized (carts) {
+            cart = carts.get(userId);
+        }
+        if (cart == null) {
+            return;
+        }
+
+        PendingWrites writes = new PendingWrites();
+        cart.lock.lock();
+        try {
+            cart.drainInto(writes);
+        } finally {
+            cart.lock.unlock();
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        boolean[] registered = {false};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int completionStatus) {
+                        settle(cart, writes, completionStatus == STATUS_COMMITTED);
+                    }
+                });
+                registered[0] = true;
+                write(writes);
+            });
+        } catch (RuntimeException e) {
+            // The transaction never started, so no synchronization will put the writes back
+            if (!registered[0]) {
+                settle(cart, writes, false);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Flushes and forgets the user's cart so the next access reloads it from cart_items.
+     * Used after cart_items has been changed directly in the database.
+     */
+    public void invalidate(Long userId) {
+        flush(userId);
+        UserCart cart;
+        synchronized (carts) {
+            cart = carts.get(userId);
+        }
+        if (cart == null) {
+            return;
+        }
+
+        cart.lock.lock();
+        try {
+            if (cart.retireIfIdle()) {
+                synchronized (carts) {
+                    carts.remove(userId, cart);
+                }
+            } else {
+                // Changed again since the flush above; reload as soon as those changes are written
+                cart.reloadPending = true;
+            }
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-ms:500}")
+    public void flushDue() {
+        long now = System.currentTimeMillis();
+        List<UserCart> snapshot;
+        synchronized (carts) {
+            snapshot = new ArrayList<>(carts.values());
+        }
+
+        PendingWrites writes = new PendingWrites();
+        Map<UserCart, PendingWrites> flushed = new HashMap<>();
+        for (UserCart cart : snapshot) {
+            cart.lock.lock();
+            try {
+                if (!cart.isClean() && now - cart.firstDirtyAt >= flushDelayMs) {
+                    PendingWrites cartWrites = new PendingWrites();
+                    cart.drainInto(cartWrites);
+                    if (!cartWrites.isEmpty()) {
+                        writes.addAll(cartWrites);
+                        flushed.put(cart, cartWrites);
+                    }
+                } else if (now - cart.lastAccessAt >= idleEvictMs && cart.retireIfIdle()) {
+                    synchronized (carts) {
+                        carts.remove(cart.userId, cart);
+                    }
+                }
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+
+        if (!writes.isEmpty()) {
+            boolean committed = false;
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(writes));
+                committed = true;
+            } catch (RuntimeException e) {
+                log.error("Cart flush failed, will retry: {}", e.getMessage(), e);
+            } finally {
+                boolean outcome = committed;
+                flushed.forEach((cart, cartWrites) -> settle(cart, cartWrites, outcome));
+            }
+        }
+    }
+
+    // Ends a flush of the cart's drained writes, putting them back if they were not committed
+    private void settle(UserCart cart, PendingWrites writes, boolean committed) {
+        cart.lock.lock();
+        try {
+            if (!committed) {
+                cart.requeue(writes);
+            }
+            cart.flushesInFlight--;
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    private void write(PendingWrites writes) {
+        if (!writes.quantities.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(writes.quantities.size());
+            writes.quantities.forEach((id, quantity) -> args.add(new Object[]{quantity, id}));
+            jdbcTemplate.batchUpdate("UPDATE cart_items SET quantity = ? WHERE id = ?", args);
+        }
+        if (!writes.removedIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM cart_items WHERE id = ANY(?)",
+                (Object) writes.removedIds.toArray(new Long[0]));
+        }
+        log.debug("Flushed {} cart quantity changes and {} removals", writes.quantities.size(), writes.removedIds.size());
+    }
+
+    /**
+     * Returns the user's cart, loaded and locked; the caller must unlock it. A cart that was
+     * dropped from memory between the lookup and the lock is skipped for a fresh one.
+     */
+    private UserCart lockCart(Long userId) {
+        while (true) {
+            UserCart cart;
+            synchronized (carts) {
+                cart = carts.computeIfAbsent(userId, UserCart::new);
+            }
+
+            cart.lock.lock();
+            if (cart.retired) {
+                cart.lock.unlock();
+                continue;
+            }
+            try {
+                long now = System.currentTimeMillis();
+                cart.lastAccessAt = now;
+                // Rows read while a flush is uncommitted would bring back old quantities and removed lines
+                boolean settled = cart.isClean() && cart.flushesInFlight == 0;
+                if (cart.loadedAt == 0 || (settled && (cart.reloadPending || now - cart.loadedAt >= reloadAfterMs))) {
+                    load(cart, now);
+                }
+            } catch (RuntimeException e) {
+                cart.lock.unlock();
+                throw e;
+            }
+            return cart;
+        }
+    }
+
+    private void load(UserCart cart, long now) {
+        cart.reset();
+        for (CartItem item : cartItemRepository.findByUserIdWithProduct(cart.userId)) {
+            Product product = item.getProduct();
+            CartLine line = new CartLine(item.getId(), product.getId(), item.getSize(), item.getPrice(),
+                item.getQuantity(), ProductDTO.fromProduct(product));
+            cart.putLine(line);
+        }
+        cart.loadedAt = now;
+        cart.reloadPending = false;
+    }
+
+    /**
+     * One line of a cart as held in memory.
+     */
+    public static final class CartLine {
+        private final Long id;
+        private final Long productId;
+        private final String size;
+        private final Money price;
+        private int quantity;
+        private final ProductDTO product;
+
+        CartLine(Long id, Long productId, String size, Money price, int quantity, ProductDTO product) {
+            this.id = id;
+            this.productId = productId;
+            this.size = size;
+            this.price = price;
+            this.quantity = quantity;
+            this.product = product;
+        }
+
+        public Long getId() { return id; }
+        public Long getProductId() { return productId; }
+        public String getSize() { return size; }
+        public Money getPrice() { return price; }
+        public int getQuantity() { return quantity; }
+        public ProductDTO getProduct() { return product; }
+
+        LineKey key() {
+            return LineKey.of(productId, size, price);
+        }
+
+        CartLine copy() {
+            return new CartLine(id, productId, size, price, quantity, product);
+        }
+
+        CartItemDTO toDTO(Long userId) {
+            return new CartItemDTO(id, userId, product, quantity, size, price);
+        }
+    }
+
+    public enum Action { ADD, UPDATE, REMOVE }
+
+    /**
+     * A cart change, addressed either by line id or by (product, size, price).
+     */
+    public record Mutation(Action action, Long lineId, Long productId, String size, Money price, int quantity) {
+
+        public static Mutation add(Long productId, String size, Money price, int quantity) {
+            return new Mutation(Action.ADD, null, productId, size, price, quantity);
+        }
+
+        public static Mutation update(Long productId, String size, Money price, int quantity) {
+            return new Mutation(Action.UPDATE, null, productId, size, price, quantity);
+        }
+
+        public static Mutation remove(Long productId, String size, Money price) {
+            return new Mutation(Action.REMOVE, null, productId, size, price, 0);
+        }
+
+        public static Mutation updateLine(Long lineId, int quantity) {
+            return new Mutation(Action.UPDATE, lineId, null, null, null, quantity);
+        }
+
+        public static Mutation removeLine(Long lineId) {
+            return new Mutation(Action.REMOVE, lineId, null, null, null, 0);
+        }
+    }
+
+    // Identity of a cart line; Money compares in paise, so 120.0 and 120.00 are the same line
+    private record LineKey(Long productId, String size, Money price) {
+        static LineKey of(Long productId, String size, Money price) {
+            return new LineKey(productId, size, price);
+        }
+    }
+
+    private static final class UserCart {
+        // A lock rather than synchronized because loads and inserts run JDBC while holding
+        // it, which would pin the carrier thread when requests run on virtual threads
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Long userId;
+        private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        private final Map<LineKey, CartLine> linesByKey = new HashMap<>();
+        private final Set<Long> dirtyIds = new HashSet<>();
+        private final Set<Long> removedIds = new HashSet<>();
+        private final Map<LineKey, CartLine> removedByKey = new HashMap<>();
+        private long firstDirtyAt;
+        private long loadedAt;
+        private long lastAccessAt;
+        // Drained writes whose transaction has not completed yet
+        private int flushesInFlight;
+        private boolean reloadPending;
+        // Dropped from the map; holders of this instance must look the cart up again
+        private boolean retired;
+
+        UserCart(Long userId) {
+            this.userId = userId;
+        }
+
+        boolean isClean() {
+            return firstDirtyAt == 0;
+        }
+
+        // Called under the lock; only a cart with nothing left to write may be dropped
+        boolean retireIfIdle() {
+            if (isClean() && flushesInFlight == 0) {
+                retired = true;
+            }
+            return retired;
+        }
+
+        void markDirty() {
+            if (firstDirtyAt == 0) {
+                firstDirtyAt = System.currentTimeMillis();
+            }
+        }
+
+        void putLine(CartLine line) {
+            lines.put(line.id, line);
+            linesByKey.put(line.key(), line);
+        }
+
+        void removeLine(CartLine line) {
+            lines.remove(line.id);
+            linesByKey.remove(line.key());
+            dirtyIds.remove(line.id);
+            removedIds.add(line.id);
+            removedByKey.put(line.key(), line);
+            markDirty();
+        }
+
+        // Re-adding a line whose delete has not been flushed yet keeps the row instead of
+        // inserting a second one that would collide with it on the unique line key
+        CartLine restoreRemoved(LineKey key, int quantity) {
+            CartLine line = removedByKey.remove(key);
+            if (line == null) {
+                return null;
+            }
+            removedIds.remove(line.id);
+            putLine(line);
+            setQuantity(line, quantity);
+            return line;
+        }
+
+        void setQuantity(CartLine line, int quantity) {
+            line.quantity = quantity;
+            dirtyIds.add(line.id);
+            markDirty();
+        }
+
+        void drainInto(PendingWrites writes) {
+            for (Long id : dirtyIds) {
+                CartLine line = lines.get(id);
+                if (line != null) {
+                    writes.quantities.put(id, line.quantity);
+                }
+            }
+            writes.removedIds.addAll(removedIds);
+            writes.removedLines.addAll(removedByKey.values());
+            dirtyIds.clear();
+            removedIds.clear();
+            removedByKey.clear();
+            firstDirtyAt = 0;
+            if (!writes.isEmpty()) {
+                flushesInFlight++;
+            }
+        }
+
+        // Puts back changes from a failed flush unless newer ones superseded them
+        void requeue(PendingWrites writes) {
+            for (Long id : writes.quantities.keySet()) {
+                if (lines.containsKey(id)) {
+                    dirtyIds.add(id);
+                    markDirty();
+                }
+            }
+            // A line re-added since then went through the upsert onto the same row, which must not be deleted
+            for (Long id : writes.removedIds) {
+                if (!lines.containsKey(id)) {
+                    removedIds.add(id);
+                    markDirty();
+                }
+            }
+            // Keeps restoreRemoved working for the rows whose delete is still pending
+            for (CartLine line : writes.removedLines) {
+                LineKey key = line.key();
+                if (removedIds.contains(line.id) && !linesByKey.containsKey(key)) {
+                    removedByKey.putIfAbsent(key, line);
+                }
+            }
+        }
+
+        void reset() {
+            lines.clear();
+            linesByKey.clear();
+            dirtyIds.clear();
+            removedIds.clear();
+            removedByKey.clear();
+            firstDirtyAt = 0;
+        }
+
+        List<CartItemDTO> toDTOs() {
+            List<CartItemDTO> dtos = new ArrayList<>(lines.size());
+            for (CartLine line : lines.values()) {
+                dtos.add(line.toDTO(userId));
+            }
+            return dtos;
+        }
+    }
+
+    private static final class PendingWrites {
+        private final Map<Long, Integer> quantities = new HashMap<>();
+        private final Set<Long> removedIds = new HashSet<>();
+        private final List<CartLine> removedLines = new ArrayList<>();
+
+        void addAll(PendingWrites other) {
+            quantities.putAll(other.quantities);
+            removedIds.addAll(other.removedIds);
+            removedLines.addAll(other.removedLines);
+        }
+
+        boolean isEmpty() {
+            return quantities.isEmpty() && removedIds.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps in-flight requests per EndpointGroup with a limit that adapts to latency (AIMD).
+ *
+ * A request that finishes within its group's latency threshold counts toward raising the
+ * limit by one, once per limit's worth of such requests, and only while the group is
+ * actually using at least half its limit. A request that is slower than the threshold or
+ * fails with a 5xx cuts the limit by the backoff ratio, at most once per threshold period
+ * so one slow burst is not counted many times. Requests over the limit are rejected
+ * straight away, rather than waiting on Tomcat threads for a database connection until
+ * Hikari's connection timeout.
+ */
+@Service
+@Slf4j
+public class ConcurrencyLimiter implements MetricsSource {
+
+    private final Map<EndpointGroup, Limit> limits = new EnumMap<>(EndpointGroup.class);
+    private final boolean enabled;
+
+    public ConcurrencyLimiter(Environment environment) {
+        this.enabled = environment.getProperty("concurrency-limit.enabled", Boolean.class, true);
+        int initial = environment.getProperty("concurrency-limit.initial-limit", Integer.class, 20);
+        int min = environment.getProperty("concurrency-limit.min-limit", Integer.class, 2);
+        int max = environment.getProperty("concurrency-limit.max-limit", Integer.class, 200);
+        double backoff = environment.getProperty("concurrency-limit.backoff-ratio", Double.class, 0.9);
+        for (EndpointGroup group : EndpointGroup.values()) {
+            // The limits may be overridden per group, e.g. for non-blocking groups that can hold far more requests
+            String prefix = "concurrency-limit." + group.propertyName() + ".";
+            long thresholdMs = environment.getProperty(prefix + "latency-threshold-ms", Long.class, 1000L);
+            limits.put(group, new Limit(
+                environment.getProperty(prefix + "initial-limit", Integer.class, initial),
+                environment.getProperty(prefix + "min-limit", Integer.class, min),
+                environment.getProperty(prefix + "max-limit", Integer.class, max),
+                backoff, TimeUnit.MILLISECONDS.toNanos(thresholdMs)));
+        }
+    }
+
+    private static final class Limit {
+        private final int minLimit;
+        private final int maxLimit;
+        private final double backoffRatio;
+        private final long thresholdNanos;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder overloadSamples = new LongAdder();
+        private volatile int limit;
+        // Guarded by this
+        private int successes;
+        private long lastDecrease;
+
+        private Limit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long thresholdNanos) {
+            this.minLimit = Math.max(1, minLimit);
+            this.maxLimit = Math.max(this.minLimit, maxLimit);
+            this.backoffRatio = backoffRatio;
+            this.thresholdNanos = thresholdNanos;
+            this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+            this.lastDecrease = System.nanoTime() - thresholdNanos;
+        }
+
+        private synchronized void onSample(long latencyNanos, boolean failed, int inFlightAtStart, long now) {
+            if (failed || latencyNanos > thresholdNanos) {
+                overloadSamples.increment();
+                successes = 0;
+                if (now - lastDecrease >= thresholdNanos) {
+                    limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                    lastDecrease = now;
+                }
+                return;
+            }
+            // An idle group says nothing about how much more it could take
+            if (inFlightAtStart * 2 < limit) {
+                return;
+            }
+            if (++successes >= limit) {
+                successes = 0;
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * A slot in a group's limit, released when the request completes.
+     */
+    public static final class Permit {
+        private final Limit limit;
+        private final long startNanos;
+        private final int inFlightAtStart;
+
+        private Permit(Limit limit, long startNanos, int inFlightAtStart) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void release(boolean failed) {
+            if (limit == null) {
+                return;
+            }
+            limit.inFlight.decrementAndGet();
+            long now = System.nanoTime();
+            limit.onSample(now - startNanos, failed, inFlightAtStart, now);
+        }
+    }
+
+    // Handed out when limiting is disabled; releasing it neither counts nor samples anything
+    private static final Permit UNLIMITED = new Permit(null, 0, 0);
+
+    /**
+     * A permit for the group, or null when the group is at its limit.
+     */
+    public Permit tryAcquire(EndpointGroup group) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        Limit limit = limits.get(group);
+        while (true) {
+            int current = limit.inFlight.get();
+            if (current >= limit.limit) {
+                limit.rejected.increment();
+                return null;
+            }
+            if (limit.inFlight.compareAndSet(current, current + 1)) {
+                limit.accepted.increment();
+                return new Permit(limit, System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "concurrencyLimiter";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        for (Map.Entry<EndpointGroup, Limit> entry : limits.entrySet()) {
+            Limit limit = entry.getValue();
+            Map<String, Object> groupMetrics = new LinkedHashMap<>();
+            groupMetrics.put("limit", limit.limit);
+            groupMetrics.put("inFlight", limit.inFlight.get());
+            groupMetrics.put("accepted", limit.accepted.sum());
+            groupMetrics.put("rejected", limit.rejected.sum());
+            groupMetrics.put("overloadSamples", limit.overloadSamples.sum());
+            groupMetrics.put("latencyThresholdMs", TimeUnit.NANOSECONDS.toMillis(limit.thresholdNanos));
+            metrics.put(entry.getKey().propertyName(), groupMetrics);
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.service;
+
+/**
+ * Coarse classes of API traffic that are limited and isolated from each other, so a
+ * burst in one (an admin export, a login storm) cannot starve another (checkout).
+ */
+public enum EndpointGroup {
+    AUTH,
+    CHECKOUT,
+    CATALOG,
+    // Non-blocking R2DBC catalog reads; they hold no thread or JDBC connection while waiting
+    REACTIVE,
+    ADMIN,
+    DEFAULT;
+
+    public static EndpointGroup of(String method, String path) {
+        if (path.startsWith("/api/auth/")) {
+            return AUTH;
+        }
+        if (path.startsWith("/api/admin") || path.startsWith("/api/supervisor") || path.startsWith("/api/orders/admin/")
+                || ("GET".equals(method) && path.equals("/api/orders"))) {
+            // Admin and supervisor screens, including the all-orders listing
+            return ADMIN;
+        }
+        if (path.startsWith("/api/cart") || path.startsWith("/api/guest-cart") || path.startsWith("/api/orders")) {
+            return CHECKOUT;
+        }
+        if (path.startsWith("/api/reactive/")) {
+            return REACTIVE;
+        }
+        if ("GET".equals(method) && (path.startsWith("/api/products") || path.startsWith("/api/stores"))) {
+            return CATALOG;
+        }
+        return DEFAULT;
+    }
+
+    public String propertyName() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,268 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PriceQuote;
+import com.ecommerce.model.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Carts of visitors who are not signed in. The cart lives in a cookie as a compact signed
+ * token, so guest browsing never writes to the database:
+ *
+ *   version(2) | count | count x (productId, sizeLength, size, quantity) | HMAC-SHA256 truncated to 16 bytes
+ *
+ * All numbers are unsigned varints and the size is its UTF-8 name, which stays the same
+ * when an admin reorders, adds or removes other variants of the product. The token is
+ * base64url without padding. Lines whose product or size no longer exists are dropped on
+ * decode, as are version 1 tokens, whose positional size codes cannot be trusted.
+ */
+@Service
+@Slf4j
+public class GuestCartService {
+
+    public static final String COOKIE_NAME = "guest_cart";
+
+    private static final int VERSION = 2;
+    private static final int SIGNATURE_LENGTH = 16;
+    private static final int MAX_LINES = 50;
+    private static final int MAX_QUANTITY = 999;
+    private static final int MAX_SIZE_BYTES = 64;
+
+    private final PricingEngine pricingEngine;
+    private final CartStore cartStore;
+    private final SecretKeySpec signingKey;
+    private final Duration cookieMaxAge;
+    private final boolean secureCookie;
+
+    public GuestCartService(PricingEngine pricingEngine,
+                            CartStore cartStore,
+                            @Value("${guest-cart.secret:${jwt.secret}}") String secret,
+                            @Value("${guest-cart.max-age-days:30}") long maxAgeDays,
+                            @Value("${guest-cart.secure-cookie:false}") boolean secureCookie) {
+        this.pricingEngine = pricingEngine;
+        this.cartStore = cartStore;
+        this.signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.cookieMaxAge = Duration.ofDays(maxAgeDays);
+        this.secureCookie = secureCookie;
+    }
+
+    public record Line(Long productId, String size, int quantity) {
+    }
+
+    public PriceQuote quote(String token) {
+        List<PriceQuote.Line> lines = new ArrayList<>();
+        for (Line line : decode(token)) {
+            lines.add(PricingEngine.line(line.productId(), line.size(), line.quantity()));
+        }
+        return pricingEngine.quote(lines, Money.ZERO);
+    }
+
+    /**
+     * Adds quantity to the (product, size) line and returns the new token.
+     */
+    public String add(String token, Long productId, String size, Integer quantity) {
+        if (productId == null || productId <= 0) {
+            throw new RuntimeException("Valid product ID is required");
+        }
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Valid quantity is required");
+        }
+        String resolvedSize = pricingEngine.resolveSize(productId, size)
+            .orElseThrow(() -> new RuntimeException("Product not found"));
+
+        Map<String, Line> lines = byKey(decode(token));
+        Line existing = lines.get(key(productId, resolvedSize));
+        int total = existing != null ? existing.quantity() + quantity : quantity;
+        lines.put(key(productId, resolvedSize), new Line(productId, resolvedSize, Math.min(total, MAX_QUANTITY)));
+        return encode(lines.values());
+    }
+
+    /**
+     * Sets the quantity of the (product, size) line, removing it when the quantity is 0.
+     */
+    public String update(String token, Long productId, String size, Integer quantity) {
+        if (quantity == null || quantity < 0) {
+            throw new RuntimeException("Valid quantity is required");
+        }
+        Map<String, Line> lines = byKey(decode(token));
+        Optional<String> resolvedSize = pricingEngine.resolveSize(productId, size);
+        if (resolvedSize.isEmpty() || !lines.containsKey(key(productId, resolvedSize.get()))) {
+            throw new RuntimeException("Cart item not found");
+        }
+
+        String key = key(productId, resolvedSize.get());
+        if (quantity == 0) {
+            lines.remove(key);
+        } else {
+            lines.put(key, new Line(productId, resolvedSize.get(), Math.min(quantity, MAX_QUANTITY)));
+        }
+        return encode(lines.values());
+    }
+
+    /**
+     * Moves the guest cart into the user's cart, priced from the PricingEngine, as one batch.
+     */
+    public void mergeInto(Long userId, String token) {
+        List<CartStore.Mutation> mutations = new ArrayList<>();
+        for (Line line : decode(token)) {
+            pricingEngine.priceOf(line.productId(), line.size()).ifPresent(price ->
+                mutations.add(CartStore.Mutation.add(line.productId(), line.size(), price, line.quantity())));
+        }
+        if (!mutations.isEmpty()) {
+            cartStore.apply(userId, mutations);
+            log.debug("Merged {} guest cart lines into cart of user {}", mutations.size(), userId);
+        }
+    }
+
+    public ResponseCookie cookie(String token) {
+        return ResponseCookie.from(COOKIE_NAME, token)
+            .httpOnly(true)
+            .secure(secureCookie)
+            .sameSite("Lax")
+            .path("/api")
+            .maxAge(cookieMaxAge)
+            .build();
+    }
+
+    public ResponseCookie clearCookie() {
+        return ResponseCookie.from(COOKIE_NAME, "")
+            .httpOnly(true)
+            .secure(secureCookie)
+            .sameSite("Lax")
+            .path("/api")
+            .maxAge(Duration.ZERO)
+            .build();
+    }
+
+    String encode(Collection<Line> lines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + lines.size() * 12 + SIGNATURE_LENGTH);
+        out.write(VERSION);
+        List<Line> encodable = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            if (line.size() != null && line.size().getBytes(StandardCharsets.UTF_8).length <= MAX_SIZE_BYTES
+                    && pricingEngine.priceOf(line.productId(), line.size()).isPresent()) {
+                encodable.add(line);
+            }
+        }
+        if (encodable.size() > MAX_LINES) {
+            throw new RuntimeException("Cart cannot hold more than " + MAX_LINES + " items");
+        }
+
+        writeVarint(out, encodable.size());
+        for (Line line : encodable) {
+            byte[] size = line.size().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, line.productId());
+            writeVarint(out, size.length);
+            out.writeBytes(size);
+            writeVarint(out, line.quantity());
+        }
+
+        byte[] payload = out.toByteArray();
+        out.writeBytes(sign(payload, payload.length));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * Returns the token's lines, or an empty list for a missing, tampered or malformed token.
+     */
+    List<Line> decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return List.of();
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            int payloadLength = bytes.length - SIGNATURE_LENGTH;
+            if (payloadLength < 2 || bytes[0] != VERSION) {
+                return List.of();
+            }
+            byte[] signature = Arrays.copyOfRange(bytes, payloadLength, bytes.length);
+            if (!MessageDigest.isEqual(signature, sign(bytes, payloadLength))) {
+                log.debug("Rejected guest cart token with a bad signature");
+                return List.of();
+            }
+
+            int[] position = {1};
+            long count = readVarint(bytes, position, payloadLength);
+            if (count > MAX_LINES) {
+                return List.of();
+            }
+            List<Line> lines = new ArrayList<>((int) count);
+            for (int i = 0; i < count; i++) {
+                long productId = readVarint(bytes, position, payloadLength);
+                long sizeLength = readVarint(bytes, position, payloadLength);
+                if (sizeLength == 0 || sizeLength > MAX_SIZE_BYTES || position[0] + sizeLength > payloadLength) {
+                    return List.of();
+                }
+                String size = new String(bytes, position[0], (int) sizeLength, StandardCharsets.UTF_8);
+                position[0] += (int) sizeLength;
+                long quantity = readVarint(bytes, position, payloadLength);
+                if (quantity <= 0 || quantity > MAX_QUANTITY || pricingEngine.priceOf(productId, size).isEmpty()) {
+                    continue;
+                }
+                lines.add(new Line(productId, size, (int) quantity));
+            }
+            return lines;
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected malformed guest cart token: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private byte[] sign(byte[] bytes, int length) {
+        try {
+            // Mac instances are not thread-safe, so each call gets its own
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(signingKey);
+            mac.update(bytes, 0, length);
+            return Arrays.copyOf(mac.doFinal(), SIGNATURE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position, int limit) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= limit) {
+                throw new IllegalArgumentException("truncated varint");
+            }
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+
+    private static Map<String, Line> byKey(List<Line> lines) {
+        Map<String, Line> byKey = new LinkedHashMap<>();
+        for (Line line : lines) {
+            byKey.put(key(line.productId(), line.size()), line);
+        }
+        return byKey;
+    }
+
+    private static String key(Long productId, String size) {
+        return productId + "\u001F" + size;
+    }
+}
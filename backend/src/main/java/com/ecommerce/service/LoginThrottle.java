@@ -0,0 +1,147 @@
+package com.ecommerce.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-phone-number login failure throttle, held in memory. After maxFailures failed
+ * attempts within the window the number is locked out, with the lockout doubling on
+ * each further failure up to maxLockoutMs. Checked before any password hashing, so
+ * attempts against a locked number cost nothing.
+ *
+ * Failures against registered numbers and against unknown ones are tracked in separate
+ * tables of at most maxEntries numbers each. Unknown numbers cost an attacker no hashing,
+ * so a spray across them only churns their own table, where the number first recorded
+ * longest ago is forgotten. In the registered table a number that is locked out is never
+ * forgotten; the oldest one that is not locked makes room instead.
+ */
+@Service
+@Slf4j
+public class LoginThrottle {
+
+    private final int maxFailures;
+    private final long windowMs;
+    private final long baseLockoutMs;
+    private final long maxLockoutMs;
+    private final Map<String, Failures> failures;
+    private final Map<String, Failures> unknownFailures;
+
+    public LoginThrottle(@Value("${auth.throttle.max-failures:5}") int maxFailures,
+                         @Value("${auth.throttle.window-ms:900000}") long windowMs,
+                         @Value("${auth.throttle.base-lockout-ms:30000}") long baseLockoutMs,
+                         @Value("${auth.throttle.max-lockout-ms:900000}") long maxLockoutMs,
+                         @Value("${auth.throttle.max-entries:100000}") int maxEntries) {
+        this.maxFailures = maxFailures;
+        this.windowMs = windowMs;
+        this.baseLockoutMs = baseLockoutMs;
+        this.maxLockoutMs = maxLockoutMs;
+        this.failures = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Failures> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                // Modifies the map itself, so it must return false; if every number is locked
+                // the table grows until the sweep releases expired lockouts
+                long now = System.currentTimeMillis();
+                Iterator<Failures> iterator = values().iterator();
+                while (iterator.hasNext()) {
+                    if (!iterator.next().isLocked(now)) {
+                        iterator.remove();
+                        return false;
+                    }
+                }
+                return false;
+            }
+        });
+        this.unknownFailures = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Failures> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private static final class Failures {
+        private int count;
+        private long windowStart;
+        private long lockedUntil;
+
+        synchronized boolean isLocked(long now) {
+            return lockedUntil >= now;
+        }
+    }
+
+    /**
+     * Milliseconds until the number may try again, or 0 if it is not locked out.
+     */
+    public long lockedForMs(String phoneNumber) {
+        String key = key(phoneNumber);
+        long now = System.currentTimeMillis();
+        return Math.max(lockedForMs(failures.get(key), now), lockedForMs(unknownFailures.get(key), now));
+    }
+
+    private static long lockedForMs(Failures entry, long now) {
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry) {
+            return Math.max(0, entry.lockedUntil - now);
+        }
+    }
+
+    /**
+     * Records a failed password check; registeredNumber says whether the number belongs to a user.
+     */
+    public void recordFailure(String phoneNumber, boolean registeredNumber) {
+        long now = System.currentTimeMillis();
+        Map<String, Failures> table = registeredNumber ? failures : unknownFailures;
+        Failures entry = table.computeIfAbsent(key(phoneNumber), k -> new Failures());
+        synchronized (entry) {
+            if (now - entry.windowStart > windowMs) {
+                entry.count = 0;
+                entry.windowStart = now;
+            }
+            entry.count++;
+            if (entry.count >= maxFailures) {
+                int doublings = Math.min(entry.count - maxFailures, 20);
+                entry.lockedUntil = now + Math.min(maxLockoutMs, baseLockoutMs << doublings);
+                log.info("Login locked for {} ms after {} failures", entry.lockedUntil - now, entry.count);
+            }
+        }
+    }
+
+    public void recordSuccess(String phoneNumber) {
+        String key = key(phoneNumber);
+        failures.remove(key);
+        unknownFailures.remove(key);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.throttle.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        sweep(failures, now);
+        sweep(unknownFailures, now);
+    }
+
+    private void sweep(Map<String, Failures> table, long now) {
+        synchronized (table) {
+            table.values().removeIf(entry -> {
+                synchronized (entry) {
+                    return now - entry.windowStart > windowMs && entry.lockedUntil < now;
+                }
+            });
+        }
+    }
+
+    private static String key(String phoneNumber) {
+        return phoneNumber != null ? phoneNumber.trim() : "";
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.service;
+
+import java.util.Map;
+
+/**
+ * A component that reports its own counters and gauges on /api/admin/metrics.
+ */
+public interface MetricsSource {
+
+    String metricsName();
+
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderResponse;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.OrderDocumentRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maintains the order_documents read model. Documents are rendered with the same
+ * ObjectMapper used for HTTP responses, so serving the stored JSON is byte-for-byte
+ * what OrderResponse would have produced.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderDocumentService {
+
+    private final OrderDocumentRepository orderDocumentRepository;
+    private final OrderRepository orderRepository;
+    private final ProductSnapshotService productSnapshotService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Renders the order (which must have its items loaded) and stores it as the order's document.
+     */
+    @Transactional
+    public String write(Order order) {
+        String document = toJson(OrderResponse.fromOrder(order, productSnapshotService.resolveFor(List.of(order))));
+        orderDocumentRepository.upsert(order.getId(), order.getUser().getId(), order.getOrderDate(), document);
+        return document;
+    }
+
+    /**
+     * Applies the mutable fields of an order (status, updatedAt, notes) onto its stored document.
+     */
+    @Transactional
+    public void patchStatus(Order order) {
+        Map<String, Object> patch = new LinkedHashMap<>();
+        patch.put("status", order.getStatus().toString());
+        patch.put("updatedAt", order.getUpdatedAt());
+        patch.put("notes", order.getNotes());
+
+        if (orderDocumentRepository.patch(order.getId(), toJson(patch)) == 0) {
+            log.debug("No document for order {}, it will be rendered on next read", order.getId());
+        }
+    }
+
+    @Transactional
+    public Optional<String> getDocument(Long orderId) {
+        Optional<String> document = orderDocumentRepository.findDocumentByOrderId(orderId);
+        if (document.isPresent()) {
+            return document;
+        }
+        return orderRepository.findByIdWithItems(orderId).map(this::write);
+    }
+
+    /**
+     * Returns the user's order history, newest first, as a JSON array of order documents.
+     */
+    @Transactional
+    public String getUserHistory(Long userId) {
+        List<Object[]> rows = orderDocumentRepository.findHistoryByUserId(userId);
+
+        StringBuilder json = new StringBuilder(rows.size() * 1024 + 2).append('[');
+        for (Object[] row : rows) {
+            String document = (String) row[1];
+            if (document == null) {
+                Long orderId = ((Number) row[0]).longValue();
+                document = orderRepository.findByIdWithItems(orderId).map(this::write).orElse(null);
+                if (document == null) {
+                    continue;
+                }
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(document);
+        }
+        return json.append(']').toString();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to render order document: " + e.getMessage(), e);
+        }
+    }
+}
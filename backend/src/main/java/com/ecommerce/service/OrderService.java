@@ -1,17 +1,28 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CartCheckoutRequest;
 import com.ecommerce.dto.CreateOrderRequest;
+import com.ecommerce.dto.PriceQuote;
+import com.ecommerce.dto.ReorderResponse;
 import com.ecommerce.model.*;
 import com.ecommerce.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,6 +47,30 @@ public class OrderService {
     
     @Autowired
     private CartItemRepository cartItemRepository;
+    
+    @Autowired
+    private OrderDocumentService orderDocumentService;
+    
+    @Autowired
+    private ProductSnapshotService productSnapshotService;
+    
+    @Autowired
+    private OrderStatusEventRepository orderStatusEventRepository;
+    
+    @Autowired
+    private PricingEngine pricingEngine;
+    
+    @Autowired
+    private CartStore cartStore;
+    
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+    
+    @Autowired
+    private ProductSnapshotRepository productSnapshotRepository;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
@@ -63,9 +98,6 @@ public class OrderService {
         if (request.getItems() == null || request.getItems().isEmpty()) {
             throw new RuntimeException("Order items are required");
         }
-        if (request.getTotalAmount() == null || request.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new RuntimeException("Valid total amount is required");
-        }
         if (request.getShippingCost() == null || request.getShippingCost().compareTo(BigDecimal.ZERO) < 0) {
             throw new RuntimeException("Valid shipping cost is required");
         }
@@ -86,10 +118,155 @@ public class OrderService {
         User user = userRepository.findById(request.getUserId())
             .orElseThrow(() -> new RuntimeException("User not found: " + request.getUserId()));
         
-        // Get user's cart items to get the correct prices (optional)
-        List<CartItem> cartItems = cartItemRepository.findByUser(user);
+        // Make sure pending cart changes are in cart_items before checkout reads or clears them
+        cartStore.flush(user.getId());
+        
+        Order order = newOrder(user, request.getAddressId(), request.getPaymentMethod(), request.getNotes(),
+            request.getShippingCost(), request.getDeliveryDate());
+        
+        // Save order first to get ID
+        order = orderRepository.save(order);
+        
+        // Price every line server-side; client-supplied prices are ignored
+        List<PriceQuote.Line> lines = new ArrayList<>();
+        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
+            lines.add(PricingEngine.line(itemRequest.getProductId(), itemRequest.getSize(), itemRequest.getQuantity()));
+        }
+        PriceQuote quote = pricingEngine.quote(lines, order.getShippingCost());
+        
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(lines.stream().map(PriceQuote.Line::getProductId).toList())) {
+            products.put(product.getId(), product);
+        }
+        
+        log.info("Starting to create order items. Count: {}", quote.getLines().size());
+        
+        for (PriceQuote.Line line : quote.getLines()) {
+            Product product = products.get(line.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Failed to create order item: Product not found: " + line.getProductId());
+            }
+            if (!line.isAvailable()) {
+                throw new RuntimeException("Failed to create order item: No price available for product: "
+                    + line.getProductId() + " size: " + line.getSize());
+            }
+            
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProductId(product.getId());
+            orderItem.setProductSnapshotId(productSnapshotService.intern(product));
+            orderItem.setQuantity(line.getQuantity());
+            orderItem.setUnitPrice(line.getUnitPrice());
+            orderItem.setProductSize(line.getSize());
+            orderItem.setTotalPrice(line.getTotalPrice());
+            
+            log.info("Created order item - Size: {}, Price: {}, Total: {}", line.getSize(), line.getUnitPrice(), line.getTotalPrice());
+            
+            order.addOrderItem(orderItemRepository.save(orderItem));
+        }
+        
+        log.info("Finished creating order items. Subtotal: {}", quote.getSubtotal());
+        
+        // The server-side total is authoritative; a differing client total only indicates a stale client
+        if (request.getTotalAmount() != null && request.getTotalAmount().compareTo(quote.getTotalAmount().toBigDecimal()) != 0) {
+            log.warn("Total amount mismatch (using server total). Calculated: {}, Received: {}",
+                quote.getTotalAmount(), request.getTotalAmount());
+        }
+        
+        order.setSubtotal(quote.getSubtotal());
+        order.setTax(quote.getTax());
+        order.setTotalAmount(quote.getTotalAmount());
+        
+        Order savedOrder = orderRepository.save(order);
+        recordStatusEvent(savedOrder, null, user.getId(), null);
+        
+        // Force flush to ensure all order items are persisted
+        orderItemRepository.flush();
+        
+        // Reload the order with items to ensure they are included in the response
+        Order orderWithItems = orderRepository.findByIdWithItems(savedOrder.getId())
+            .orElseThrow(() -> new RuntimeException("Order not found after creation"));
+        
+        log.info("Final order has {} items, userCity: {}, deliveryDate: {}", 
+            orderWithItems.getOrderItems().size(), orderWithItems.getUserCity(), orderWithItems.getDeliveryDate());
+        
+        orderDocumentService.write(orderWithItems);
+        return orderWithItems;
+    }
+    
+    /**
+     * Creates an order from the user's cart_items with set-based statements: the order lines are
+     * inserted from the cart joined with current variant prices, stock is decremented, and the
+     * cart is deleted, all in one transaction.
+     */
+    @Transactional
+    public Order createOrderFromCart(Long userId, CartCheckoutRequest request) {
+        if (request.getShippingCost() != null && request.getShippingCost().compareTo(BigDecimal.ZERO) < 0) {
+            throw new RuntimeException("Valid shipping cost is required");
+        }
+        
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+        
+        // The statements below read cart_items, so pending in-memory changes must be written first
+        cartStore.flush(userId);
+        
+        List<Object[]> shortages = productVariantRepository.findShortagesForCart(userId);
+        if (!shortages.isEmpty()) {
+            Object[] first = shortages.get(0);
+            throw new RuntimeException(first[3] == null
+                ? "Product no longer available: " + first[0] + " size: " + first[1]
+                : "Insufficient stock for product: " + first[0] + " size: " + first[1] + " available: " + first[3]);
+        }
+        
+        Order order = orderRepository.save(newOrder(user, request.getAddressId(), request.getPaymentMethod(),
+            request.getNotes(), request.getShippingCost(), request.getDeliveryDate()));
+        
+        productSnapshotRepository.insertForCart(userId);
+        int lineCount = orderItemRepository.insertFromCart(order.getId(), userId);
+        if (lineCount == 0) {
+            throw new RuntimeException("Cart is empty");
+        }
+        // Re-checks stock under the row locks, in case another checkout took it since the shortage query
+        if (productVariantRepository.decrementStockForCart(userId) != lineCount) {
+            throw new RuntimeException("Insufficient stock for one or more items");
+        }
+        cartItemRepository.deleteByUserId(userId);
         
-        // Create order
+        Money subtotal = Money.ZERO;
+        for (Money lineTotal : orderItemRepository.findTotalPricesByOrderId(order.getId())) {
+            subtotal = subtotal.plus(lineTotal);
+        }
+        Money tax = PricingEngine.taxOn(subtotal);
+        order.setSubtotal(subtotal);
+        order.setTax(tax);
+        order.setTotalAmount(subtotal.plus(tax).plus(order.getShippingCost()));
+        
+        Order savedOrder = orderRepository.save(order);
+        recordStatusEvent(savedOrder, null, userId, null);
+        
+        // The order's item collection was loaded before the lines were inserted in SQL
+        entityManager.flush();
+        entityManager.clear();
+        Order orderWithItems = orderRepository.findByIdWithItems(savedOrder.getId())
+            .orElseThrow(() -> new RuntimeException("Order not found after creation"));
+        orderDocumentService.write(orderWithItems);
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cartStore.invalidate(userId);
+            }
+        });
+        
+        log.info("Created order {} from cart of user {} with {} lines, total {}",
+            orderWithItems.getOrderNumber(), userId, lineCount, orderWithItems.getTotalAmount());
+        return orderWithItems;
+    }
+    
+    // Order header with the user's and address details frozen; not yet saved
+    private Order newOrder(User user, Long addressId, String paymentMethod, String notes,
+                           BigDecimal shippingCost, String deliveryDate) {
         Order order = new Order();
         order.setUser(user);
         order.setOrderNumber(generateOrderNumber());
@@ -103,8 +280,8 @@ public class OrderService {
         log.info("User details - Name: {}, City: {}, Phone: {}", user.getName(), user.getCity(), user.getPhoneNumber());
         
         // Get address details if provided (for delivery)
-        if (request.getAddressId() != null) {
-            UserAddress address = userAddressRepository.findById(request.getAddressId())
+        if (addressId != null) {
+            UserAddress address = userAddressRepository.findById(addressId)
                 .orElseThrow(() -> new RuntimeException("Address not found"));
             
             // Freeze address details
@@ -116,131 +293,47 @@ public class OrderService {
             order.setShippingPhone(address.getPhone());
         }
         
-        order.setPaymentMethod(request.getPaymentMethod());
-        order.setNotes(request.getNotes());
-        order.setShippingCost(request.getShippingCost() != null ? request.getShippingCost() : BigDecimal.ZERO);
+        order.setPaymentMethod(paymentMethod);
+        order.setNotes(notes);
+        order.setShippingCost(shippingCost != null ? Money.of(shippingCost, RoundingMode.HALF_UP) : Money.ZERO);
         
         // Set delivery date if provided
-        if (request.getDeliveryDate() != null && !request.getDeliveryDate().isEmpty()) {
+        if (deliveryDate != null && !deliveryDate.isEmpty()) {
             try {
-                LocalDateTime deliveryDateTime = LocalDateTime.parse(request.getDeliveryDate() + "T00:00:00");
+                LocalDateTime deliveryDateTime = LocalDateTime.parse(deliveryDate + "T00:00:00");
                 order.setDeliveryDate(deliveryDateTime);
-                log.info("Successfully set delivery date: {} from input: {}", deliveryDateTime, request.getDeliveryDate());
+                log.info("Successfully set delivery date: {} from input: {}", deliveryDateTime, deliveryDate);
             } catch (Exception e) {
-                log.error("Failed to parse delivery date: {} - Error: {}", request.getDeliveryDate(), e.getMessage());
-                throw new RuntimeException("Invalid delivery date format: " + request.getDeliveryDate());
+                log.error("Failed to parse delivery date: {} - Error: {}", deliveryDate, e.getMessage());
+                throw new RuntimeException("Invalid delivery date format: " + deliveryDate);
             }
         } else {
             log.info("No delivery date provided in request");
         }
         
-        // Save order first to get ID
-        order = orderRepository.save(order);
-        
-        // Create order items and calculate totals
-        BigDecimal subtotal = BigDecimal.ZERO;
-        log.info("Starting to create order items. Count: {}", request.getItems().size());
-        
-        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
-            try {
-                log.info("Processing item: {}", itemRequest.getProductId());
-                
-                // Get product directly from repository
-                Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + itemRequest.getProductId()));
-                
-                log.info("Found product: {}", product.getName());
-                
-                // Create order item
-                OrderItem orderItem = new OrderItem();
-                orderItem.setOrder(order);
-                orderItem.setProductId(product.getId());
-                orderItem.setProductName(product.getName());
-                orderItem.setProductDescription(product.getDescription());
-                orderItem.setProductImageUrl(product.getImageUrl());
-                orderItem.setProductCategory(product.getCategory());
-                orderItem.setQuantity(itemRequest.getQuantity());
-                
-                // Use price and size from request (frontend provides correct values)
-                BigDecimal unitPrice;
-                if (itemRequest.getPrice() != null) {
-                    unitPrice = itemRequest.getPrice();
-                    log.info("Using price from request: {}", unitPrice);
-                } else {
-                    // Fallback: get price from first variant
-                    if (product.getVariants() != null && !product.getVariants().isEmpty()) {
-                        unitPrice = product.getVariants().get(0).getPrice();
-                        log.info("Using price from variant: {}", unitPrice);
-                    } else {
-                        throw new RuntimeException("No price available for product: " + product.getId());
-                    }
-                }
-                
-                orderItem.setUnitPrice(unitPrice);
-                orderItem.setProductSize(itemRequest.getSize());
-                orderItem.setTotalPrice(unitPrice.multiply(BigDecimal.valueOf(itemRequest.getQuantity())).setScale(2, java.math.RoundingMode.HALF_UP));
-                
-                log.info("Created order item - Size: {}, Price: {}, Total: {}", itemRequest.getSize(), unitPrice, orderItem.getTotalPrice());
-                
-                OrderItem savedOrderItem = orderItemRepository.save(orderItem);
-                log.info("Saved order item with ID: {}", savedOrderItem.getId());
-                
-                // Add the order item to the order's collection
-                order.addOrderItem(savedOrderItem);
-                
-                subtotal = subtotal.add(orderItem.getTotalPrice());
-                
-            } catch (Exception e) {
-                log.error("Error creating order item: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to create order item: " + e.getMessage(), e);
-            }
-        }
-        
-        log.info("Finished creating order items. Subtotal: {}", subtotal);
-        
-        // Calculate tax (8% to match frontend) with proper rounding
-        BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(0.08)).setScale(2, java.math.RoundingMode.HALF_UP);
-        BigDecimal calculatedTotal = subtotal.add(tax).add(order.getShippingCost()).setScale(2, java.math.RoundingMode.HALF_UP);
-        
-        // Use the frontend total if it's reasonable (within 1% of calculated total)
-        BigDecimal tolerance = calculatedTotal.multiply(BigDecimal.valueOf(0.01));
-        BigDecimal difference = request.getTotalAmount().subtract(calculatedTotal).abs();
-        
-        if (difference.compareTo(tolerance) > 0) {
-            // Log the mismatch but don't fail the order
-            System.err.println(String.format(
-                "Total amount mismatch (using frontend total). Calculated: %s, Received: %s, Difference: %s", 
-                calculatedTotal, request.getTotalAmount(), difference));
-        }
-        
-        // Use frontend provided totals to avoid calculation mismatches
-        order.setSubtotal(subtotal);
-        order.setTax(tax);
-        order.setTotalAmount(request.getTotalAmount()); // Use frontend total
-        
-        Order savedOrder = orderRepository.save(order);
-        
-        // Force flush to ensure all order items are persisted
-        orderItemRepository.flush();
-        
-        // Reload the order with items to ensure they are included in the response
-        Order orderWithItems = orderRepository.findByIdWithItems(savedOrder.getId())
-            .orElseThrow(() -> new RuntimeException("Order not found after creation"));
-        
-        log.info("Final order has {} items, userCity: {}, deliveryDate: {}", 
-            orderWithItems.getOrderItems().size(), orderWithItems.getUserCity(), orderWithItems.getDeliveryDate());
-        return orderWithItems;
+        return order;
     }
     
     @Transactional
     public Order updateOrderStatus(Long orderId, Order.OrderStatus status) {
+        return updateOrderStatus(orderId, status, null);
+    }
+    
+    @Transactional
+    public Order updateOrderStatus(Long orderId, Order.OrderStatus status, Long actorUserId) {
         Order order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
         
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
         order.setUpdatedAt(LocalDateTime.now());
         
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        if (previousStatus != status) {
+            recordStatusEvent(savedOrder, previousStatus, actorUserId, null);
+        }
+        orderDocumentService.patchStatus(savedOrder);
+        return savedOrder;
     }
     
     private String generateOrderNumber() {
@@ -270,6 +363,7 @@ public class OrderService {
             throw new RuntimeException("Order cannot be cancelled. Current status: " + order.getStatus());
         }
         
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CANCELLED);
         order.setUpdatedAt(LocalDateTime.now());
         
@@ -281,6 +375,48 @@ public class OrderService {
             order.setNotes(cancellationNote);
         }
         
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        recordStatusEvent(savedOrder, previousStatus, userId, reason);
+        orderDocumentService.patchStatus(savedOrder);
+        return savedOrder;
+    }
+    
+    /**
+     * Puts the lines of one of the user's past orders back into their cart, at current prices,
+     * and reports the lines that could not be re-added.
+     */
+    public ReorderResponse reorder(Long orderId, Long userId) {
+        Long ownerId = orderRepository.findUserIdById(orderId)
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+        if (!ownerId.equals(userId)) {
+            throw new RuntimeException("Unauthorized to reorder this order");
+        }
+        
+        // Pending in-memory cart changes must reach cart_items before the upsert adds to them
+        cartStore.flush(userId);
+        int inserted = cartItemRepository.insertFromOrder(userId, orderId);
+        cartStore.invalidate(userId);
+        
+        List<ReorderResponse.UnavailableItem> unavailable = new ArrayList<>();
+        for (Object[] row : orderItemRepository.findUnavailableForReorder(orderId)) {
+            unavailable.add(new ReorderResponse.UnavailableItem(
+                row[0] != null ? ((Number) row[0]).longValue() : null,
+                (String) row[1],
+                (String) row[2],
+                row[3] != null ? ((Number) row[3]).intValue() : null));
+        }
+        log.info("Reorder of order {} by user {}: {} cart lines upserted, {} unavailable",
+            orderId, userId, inserted, unavailable.size());
+        
+        return new ReorderResponse(cartStore.getItems(userId), unavailable);
+    }
+    
+    public List<OrderStatusEvent> getStatusTimeline(Long orderId) {
+        return orderStatusEventRepository.findByOrder_IdOrderByAtAsc(orderId);
+    }
+    
+    private void recordStatusEvent(Order order, Order.OrderStatus fromStatus, Long actorUserId, String reason) {
+        orderStatusEventRepository.save(new OrderStatusEvent(
+            order, fromStatus, order.getStatus(), order.getUpdatedAt(), actorUserId, reason));
     }
 }
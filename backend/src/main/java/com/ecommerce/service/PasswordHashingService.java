@@ -0,0 +1,115 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.ServiceBusyException;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a small dedicated pool, so hashing never uses more than that many CPUs.
+ * The calling request thread still blocks until the hash is done, for at most timeoutMs.
+ * The pool and its queue are bounded; when both are full the call fails fast with
+ * ServiceBusyException (503), so a login flood is shed instead of taking every CPU away
+ * from checkout.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  UserRepository userRepository,
+                                  @Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-size:32}") int queueSize,
+                                  @Value("${auth.hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.timeoutMs = timeoutMs;
+
+        // Default: half the cores, so hashing can never take all of them
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * After a successful login, re-hashes the password in the background if it was hashed
+     * with a lower cost than the current one. Skipped silently when the pool is busy.
+     */
+    public void rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        Long userId = user.getId();
+        // The write runs on a pool thread; keep it in the login's bulkhead partition
+        EndpointGroup group = Bulkheads.currentGroup();
+        try {
+            executor.execute(() -> {
+                String encoded = passwordEncoder.encode(rawPassword);
+                Bulkheads.callAs(group, () -> userRepository.findById(userId).map(current -> {
+                    current.setPassword(encoded);
+                    User saved = userRepository.save(current);
+                    log.debug("Upgraded password hash of user {}", userId);
+                    return saved;
+                }));
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Skipped password rehash of user {}, hashing pool is busy", userId);
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Authentication is busy, please retry", 1);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Authentication timed out, please retry", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Authentication interrupted", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,229 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PhoneEmailResponse;
+import com.ecommerce.exception.PhoneVerificationException;
+import com.ecommerce.util.VirtualThreads;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches phone.email verification results. The verification URL comes from the client,
+ * so only https URLs on the allowed hosts are fetched.
+ *
+ * - One shared HttpClient keeps connections to the provider alive between calls.
+ * - Connect and request timeouts bound every call.
+ * - A circuit breaker opens after consecutive failures and fails calls immediately
+ *   until the cool-down passes, then lets one trial call through.
+ * - Successful results are cached per URL for a few minutes, so a signup retried
+ *   after a validation error does not go back to the provider.
+ * - verifyAsync returns without holding the caller's thread.
+ */
+@Service
+@Slf4j
+public class PhoneVerificationClient {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private record CachedResult(PhoneEmailResponse response, long expiresAt) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+    private final Set<String> allowedHosts;
+    private final boolean allowHttp;
+    private final int failureThreshold;
+    private final long openMs;
+    private final long cacheTtlMs;
+    private final int cacheMaxEntries;
+
+    private final Map<String, CachedResult> cache = new ConcurrentHashMap<>();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public PhoneVerificationClient(ObjectMapper objectMapper,
+                                   @Value("${phone-verification.allowed-hosts:user.phone.email}") List<String> allowedHosts,
+                                   @Value("${phone-verification.allow-http:false}") boolean allowHttp,
+                                   @Value("${phone-verification.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                   @Value("${phone-verification.request-timeout-ms:3000}") long requestTimeoutMs,
+                                   @Value("${phone-verification.threads:4}") int threads,
+                                   @Value("${phone-verification.breaker.failure-threshold:5}") int failureThreshold,
+                                   @Value("${phone-verification.breaker.open-ms:30000}") long openMs,
+                                   @Value("${phone-verification.cache.ttl-ms:300000}") long cacheTtlMs,
+                                   @Value("${phone-verification.cache.max-entries:1000}") int cacheMaxEntries,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.allowedHosts = new HashSet<>(allowedHosts);
+        this.allowHttp = allowHttp;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.cacheTtlMs = cacheTtlMs;
+        this.cacheMaxEntries = cacheMaxEntries;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = VirtualThreads.executorOr(virtualThreads, () -> Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "phone-verification-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(executor)
+            .build();
+    }
+
+    public PhoneEmailResponse verify(String url) {
+        try {
+            return verifyAsync(url).get(requestTimeout.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (TimeoutException e) {
+            throw new PhoneVerificationException("Verification timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PhoneVerificationException("Verification interrupted");
+        }
+    }
+
+    /**
+     * Completes with the verified details, or exceptionally with PhoneVerificationException.
+     * Dependent stages run on this client's pool, not on the caller's thread.
+     */
+    public CompletableFuture<PhoneEmailResponse> verifyAsync(String url) {
+        URI uri;
+        try {
+            uri = checkUrl(url);
+        } catch (PhoneVerificationException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CachedResult cached = cache.get(url);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return CompletableFuture.completedFuture(cached.response());
+        }
+        if (!tryAcquire()) {
+            return CompletableFuture.failedFuture(new PhoneVerificationException("Verification service unavailable"));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(requestTimeout)
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handleAsync((response, error) -> {
+                if (error != null) {
+                    recordFailure();
+                    throw new PhoneVerificationException("Verification request failed", error);
+                }
+                if (response.statusCode() >= 500) {
+                    recordFailure();
+                    throw new PhoneVerificationException("Verification provider returned " + response.statusCode());
+                }
+                // A 4xx is a bad or expired link, not a provider outage
+                recordSuccess();
+                if (response.statusCode() != 200) {
+                    throw new PhoneVerificationException("Verification failed with status " + response.statusCode());
+                }
+
+                PhoneEmailResponse result = parse(response.body());
+                if (cache.size() >= cacheMaxEntries) {
+                    long now = System.currentTimeMillis();
+                    cache.values().removeIf(entry -> entry.expiresAt() <= now);
+                }
+                if (cache.size() < cacheMaxEntries) {
+                    cache.put(url, new CachedResult(result, System.currentTimeMillis() + cacheTtlMs));
+                }
+                return result;
+            }, executor);
+    }
+
+    private URI checkUrl(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new PhoneVerificationException("Invalid verification URL");
+        }
+        String scheme = uri.getScheme();
+        boolean schemeAllowed = "https".equalsIgnoreCase(scheme) || (allowHttp && "http".equalsIgnoreCase(scheme));
+        if (!schemeAllowed || uri.getHost() == null || !allowedHosts.contains(uri.getHost().toLowerCase(Locale.ROOT))) {
+            throw new PhoneVerificationException("Verification URL not allowed");
+        }
+        return uri;
+    }
+
+    private PhoneEmailResponse parse(String body) {
+        try {
+            PhoneEmailResponse result = objectMapper.readValue(body, PhoneEmailResponse.class);
+            if (result.getUserPhoneNumber() == null) {
+                throw new PhoneVerificationException("Verification response has no phone number");
+            }
+            return result;
+        } catch (JsonProcessingException e) {
+            throw new PhoneVerificationException("Unreadable verification response", e);
+        }
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            return true;
+        }
+        // While half open, the trial call is the only one let through
+        return state == State.CLOSED;
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    private synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Phone verification circuit opened after {} consecutive failures", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static PhoneVerificationException unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof PhoneVerificationException verificationException) {
+            return verificationException;
+        }
+        return new PhoneVerificationException("Verification failed", error);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,143 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.PriceQuote;
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductVariant;
+import com.ecommerce.repository.ProductVariantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side source of truth for prices. Keeps a (productId, size) -> price table
+ * built from product_variants, so cart and checkout totals never depend on the
+ * price a client sends and never need a per-line database read.
+ *
+ * ProductService pushes changes made on this node; the periodic refresh picks up
+ * changes made on other nodes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PricingEngine {
+
+    // 8% GST, in basis points
+    public static final long TAX_RATE_BASIS_POINTS = 800;
+
+    private final ProductVariantRepository productVariantRepository;
+
+    // productId -> (size -> price), sizes in variant order; inner maps are immutable and replaced whole
+    private final Map<Long, Map<String, Money>> prices = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${pricing.refresh-interval-ms:300000}", initialDelayString = "${pricing.refresh-interval-ms:300000}")
+    public void reload() {
+        Map<Long, Map<String, Money>> loaded = new HashMap<>();
+        for (Object[] row : productVariantRepository.findAllPrices()) {
+            loaded.computeIfAbsent((Long) row[0], id -> new LinkedHashMap<>())
+                .put((String) row[1], Money.of((BigDecimal) row[2], RoundingMode.HALF_UP));
+        }
+
+        loaded.replaceAll((productId, sizes) -> Collections.unmodifiableMap(sizes));
+        prices.putAll(loaded);
+        prices.keySet().retainAll(loaded.keySet());
+        log.debug("Loaded prices for {} products", loaded.size());
+    }
+
+    public void update(Product product) {
+        if (product.getVariants() == null || product.getVariants().isEmpty()) {
+            prices.remove(product.getId());
+            return;
+        }
+
+        // Same variant order as reload(), so the first (default) size does not depend on which ran last
+        List<ProductVariant> variants = new ArrayList<>(product.getVariants());
+        variants.sort(Comparator.comparing(ProductVariant::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        Map<String, Money> sizes = new LinkedHashMap<>();
+        for (ProductVariant variant : variants) {
+            sizes.put(variant.getSize(), Money.of(variant.getPrice(), RoundingMode.HALF_UP));
+        }
+        prices.put(product.getId(), Collections.unmodifiableMap(sizes));
+    }
+
+    public void remove(Long productId) {
+        prices.remove(productId);
+    }
+
+    /**
+     * Returns the size the price table knows the line by: the given size, or the
+     * product's first variant when no size is given. Empty if there is no such variant.
+     */
+    public Optional<String> resolveSize(Long productId, String size) {
+        Map<String, Money> sizes = prices.get(productId);
+        if (sizes == null || sizes.isEmpty()) {
+            return Optional.empty();
+        }
+        if (size == null || size.isEmpty()) {
+            return Optional.of(sizes.keySet().iterator().next());
+        }
+        return sizes.containsKey(size) ? Optional.of(size) : Optional.empty();
+    }
+
+    public Optional<Money> priceOf(Long productId, String size) {
+        return resolveSize(productId, size).map(resolved -> prices.get(productId).get(resolved));
+    }
+
+    public Money requirePrice(Long productId, String size) {
+        return priceOf(productId, size)
+            .orElseThrow(() -> new RuntimeException("No price available for product: " + productId + " size: " + size));
+    }
+
+    /**
+     * Prices the given lines. Lines whose product or size no longer exists are returned
+     * with available=false and left out of the totals.
+     */
+    public PriceQuote quote(List<PriceQuote.Line> lines, Money shippingCost) {
+        PriceQuote quote = new PriceQuote();
+        Money subtotal = Money.ZERO;
+
+        for (PriceQuote.Line line : lines) {
+            Optional<String> size = resolveSize(line.getProductId(), line.getSize());
+            if (size.isPresent()) {
+                Money unitPrice = prices.get(line.getProductId()).get(size.get());
+                line.setSize(size.get());
+                line.setUnitPrice(unitPrice);
+                line.setTotalPrice(unitPrice.times(line.getQuantity()));
+                line.setAvailable(true);
+                subtotal = subtotal.plus(line.getTotalPrice());
+            } else {
+                line.setAvailable(false);
+            }
+            quote.getLines().add(line);
+        }
+
+        Money shipping = shippingCost != null ? shippingCost : Money.ZERO;
+        Money tax = taxOn(subtotal);
+        quote.setSubtotal(subtotal);
+        quote.setTax(tax);
+        quote.setShippingCost(shipping);
+        quote.setTotalAmount(subtotal.plus(tax).plus(shipping));
+        return quote;
+    }
+
+    public static Money taxOn(Money subtotal) {
+        return subtotal.percentage(TAX_RATE_BASIS_POINTS, RoundingMode.HALF_UP);
+    }
+
+    public static PriceQuote.Line line(Long productId, String size, Integer quantity) {
+        PriceQuote.Line line = new PriceQuote.Line();
+        line.setProductId(productId);
+        line.setSize(size);
+        line.setQuantity(quantity);
+        return line;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.ProductDTO;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.ProductVariant;
 import com.ecommerce.repository.ProductRepository;
@@ -9,6 +10,7 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
@@ -20,7 +22,10 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
     
-    @CacheEvict(value = "products", allEntries = true)
+    @Autowired
+    private PricingEngine pricingEngine;
+    
+    @CacheEvict(value = {"products", "catalog"}, allEntries = true)
     public Product createProduct(Product product) {
         // Handle variants if provided
         if (product.getVariants() != null && !product.getVariants().isEmpty()) {
@@ -29,7 +34,9 @@ public class ProductService {
             }
         }
         
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        pricingEngine.update(savedProduct);
+        return savedProduct;
     }
     
     public List<Product> getAllProducts() {
@@ -41,6 +48,17 @@ public class ProductService {
         return productRepository.findAvailableProducts();
     }
 
+    /**
+     * The available products already mapped to DTOs, for endpoints that serve the whole catalog.
+     */
+    @Cacheable("catalog")
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getCatalog() {
+        return productRepository.findAvailableProducts().stream()
+            .map(ProductDTO::fromProduct)
+            .collect(Collectors.toList());
+    }
+
     public Page<Product> getAvailableProductsPaged(Pageable pageable) {
         return productRepository.findAvailableProductsPaged(pageable);
     }
@@ -49,7 +67,7 @@ public class ProductService {
         return productRepository.findById(id);
     }
     
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = {"products", "catalog"}, allEntries = true)
     public Product updateProduct(Long id, Product productDetails) {
         Product product = productRepository.findById(id).orElseThrow();
         product.setName(productDetails.getName());
@@ -71,12 +89,15 @@ public class ProductService {
             }
         }
         
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        pricingEngine.update(savedProduct);
+        return savedProduct;
     }
     
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = {"products", "catalog"}, allEntries = true)
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        pricingEngine.remove(id);
     }
     
     // Quantity is now managed through ProductVariant entities
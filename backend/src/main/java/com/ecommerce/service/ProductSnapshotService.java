@@ -0,0 +1,104 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductSnapshot;
+import com.ecommerce.repository.ProductSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Interns product snapshots for order items. Recently used snapshots are kept in an
+ * in-memory LRU so checkout only writes a snapshot the first time its content is seen,
+ * and order rendering resolves all snapshots of a batch of orders with a single lookup.
+ */
+@Service
+public class ProductSnapshotService {
+
+    @Autowired
+    private ProductSnapshotRepository productSnapshotRepository;
+
+    private final Map<String, ProductSnapshot> recentSnapshots;
+
+    public ProductSnapshotService(@Value("${product-snapshots.cache-size:1024}") int cacheSize) {
+        this.recentSnapshots = Collections.synchronizedMap(new LinkedHashMap<>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProductSnapshot> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the snapshot id for the product's current details, storing the snapshot if it is new.
+     */
+    @Transactional
+    public String intern(Product product) {
+        ProductSnapshot snapshot = new ProductSnapshot(product);
+        if (recentSnapshots.containsKey(snapshot.getId())) {
+            return snapshot.getId();
+        }
+
+        productSnapshotRepository.insertIfAbsent(snapshot.getId(), snapshot.getName(), snapshot.getDescription(),
+            snapshot.getImageUrl(), snapshot.getCategory(), snapshot.getCreatedAt());
+        // Only a committed row may be remembered; the order transaction can still roll the insert back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentSnapshots.put(snapshot.getId(), snapshot);
+                }
+            });
+        } else {
+            recentSnapshots.put(snapshot.getId(), snapshot);
+        }
+        return snapshot.getId();
+    }
+
+    /**
+     * Resolves the snapshots referenced by the items of the given orders, keyed by snapshot id.
+     */
+    public Map<String, ProductSnapshot> resolveFor(Collection<Order> orders) {
+        Set<String> ids = new HashSet<>();
+        for (Order order : orders) {
+            for (OrderItem item : order.getOrderItems()) {
+                if (item.getProductSnapshotId() != null) {
+                    ids.add(item.getProductSnapshotId());
+                }
+            }
+        }
+        return resolve(ids);
+    }
+
+    public Map<String, ProductSnapshot> resolve(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, ProductSnapshot> resolved = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            ProductSnapshot snapshot = recentSnapshots.get(id);
+            if (snapshot != null) {
+                resolved.put(id, snapshot);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (ProductSnapshot snapshot : productSnapshotRepository.findAllById(missing)) {
+                resolved.put(snapshot.getId(), snapshot);
+                recentSnapshots.put(snapshot.getId(), snapshot);
+            }
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.service;
+
+import java.util.List;
+
+/**
+ * Shared tier for cluster-wide rate limiting. Nodes add the tokens their clients
+ * consumed to a per-(policy, client, window) counter and read back the cluster total;
+ * RateLimiter charges the difference to its local buckets. Windows are whole minutes
+ * since the epoch.
+ */
+public interface RateLimitCounterStore {
+
+    record Counter(String policy, String clientKey, long count) {
+    }
+
+    /**
+     * Adds each counter's count to the shared counter for the window and returns the new
+     * totals. The order of the result need not match the input.
+     */
+    List<Counter> add(long window, List<Counter> deltas);
+
+    void deleteBefore(long window);
+}
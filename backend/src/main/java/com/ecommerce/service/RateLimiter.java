@@ -0,0 +1,404 @@
+package com.ecommerce.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client request limiter using GCRA, the virtual-scheduling form of a token bucket.
+ * Each client is a single AtomicLong holding its theoretical arrival time (TAT), so a
+ * request is one map lookup and one CAS, with no allocation once the client is known.
+ *
+ * A bucket whose TAT has passed is full and indistinguishable from a new one, which is
+ * what lets the sweeper drop it. Clients are keyed by IP address (String) or user id
+ * (Long); the two never collide since they are different types.
+ *
+ * With rate-limit.distributed.enabled the limits hold across the cluster. Buckets also
+ * count the tokens they hand out, and every sync interval those counts are pushed to the
+ * RateLimitCounterStore in one batch. The totals that come back include what other nodes
+ * handed out to the same client, and that excess is charged to the local bucket by
+ * moving its TAT forward. Requests never wait on the store, so the cluster can overshoot
+ * a limit by at most what the other nodes allow in one sync interval. If the store is
+ * down, each node keeps limiting on its own.
+ */
+@Service
+@Slf4j
+public class RateLimiter implements MetricsSource {
+
+    private static final long UNSET = Long.MIN_VALUE;
+    private static final int MAX_CLIENT_KEY_LENGTH = 64;
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final Policy auth;
+    private final Policy catalog;
+    private final Policy api;
+    private final List<Policy> policies;
+    private final int maxKeys;
+    private final RateLimitCounterStore counterStore;
+    private final int maxSyncBatch;
+
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong syncFailures = new AtomicLong();
+    private final AtomicLong remoteTokensCharged = new AtomicLong();
+    private volatile long lastSyncMs;
+
+    public RateLimiter(@Value("${rate-limit.auth.per-minute:10}") int authPerMinute,
+                       @Value("${rate-limit.auth.burst:5}") int authBurst,
+                       @Value("${rate-limit.catalog.per-minute:300}") int catalogPerMinute,
+                       @Value("${rate-limit.catalog.burst:60}") int catalogBurst,
+                       @Value("${rate-limit.api.per-minute:100}") int apiPerMinute,
+                       @Value("${rate-limit.api.burst:100}") int apiBurst,
+                       @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                       @Value("${rate-limit.distributed.max-batch:5000}") int maxSyncBatch,
+                       ObjectProvider<RateLimitCounterStore> counterStore) {
+        this.auth = new Policy("auth", authPerMinute, authBurst, false);
+        this.catalog = new Policy("catalog", catalogPerMinute, catalogBurst, false);
+        this.api = new Policy("api", apiPerMinute, apiBurst, true);
+        this.policies = List.of(auth, catalog, api);
+        this.maxKeys = maxKeys;
+        this.maxSyncBatch = maxSyncBatch;
+        this.counterStore = counterStore.getIfAvailable();
+        if (this.counterStore != null) {
+            log.info("Rate limits are shared through {}", this.counterStore.getClass().getSimpleName());
+        }
+    }
+
+    private static final class Bucket {
+        // Theoretical arrival time in System.nanoTime() terms; UNSET until first use
+        private final AtomicLong tat = new AtomicLong(UNSET);
+        // Tokens handed out since the last sync
+        private final AtomicLong unsynced = new AtomicLong();
+        // Cluster total for syncedWindow as of the last sync; only written by the sync. The
+        // sweep reads syncedWindow, so a bucket is not dropped while its total is still needed
+        private volatile long syncedWindow;
+        private long clusterTotal;
+    }
+
+    public static final class Policy {
+        private final String name;
+        private final int limit;
+        private final int burst;
+        private final boolean perUser;
+        private final long emissionIntervalNanos;
+        private final long burstOffsetNanos;
+        private final String header;
+        private final Map<Object, Bucket> buckets = new ConcurrentHashMap<>();
+        private volatile boolean evicting;
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Policy(String name, int perMinute, int burst, boolean perUser) {
+            this.name = name;
+            this.limit = perMinute;
+            this.burst = Math.max(1, burst);
+            this.perUser = perUser;
+            this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.burstOffsetNanos = emissionIntervalNanos * this.burst;
+            this.header = perMinute + ";w=60;burst=" + this.burst + ";name=\"" + name + "\"";
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        /**
+         * Whether authenticated requests are keyed by user id rather than IP address.
+         */
+        public boolean isPerUser() {
+            return perUser;
+        }
+
+        /**
+         * Value for the RateLimit-Policy header.
+         */
+        public String getHeader() {
+            return header;
+        }
+
+        /**
+         * Seconds until a bucket with the given remaining tokens is full again.
+         */
+        public long secondsUntilFull(long remaining) {
+            return ceilSeconds((burst - remaining) * emissionIntervalNanos);
+        }
+    }
+
+    /**
+     * Login, signup and password reset are limited per IP and much more tightly than the
+     * catalog, which anonymous visitors browse; everything else is limited per user.
+     */
+    public Policy policyFor(String method, String path) {
+        if (path.startsWith("/api/auth/")) {
+            return auth;
+        }
+        if ("GET".equals(method) && (path.startsWith("/api/products") || path.startsWith("/api/guest-cart")
+                || path.startsWith("/api/reactive/products"))) {
+            return catalog;
+        }
+        return api;
+    }
+
+    /**
+     * Takes one token from the client's bucket. Returns the tokens left (>= 0) when the
+     * request is allowed, or minus the nanoseconds until the next token when it is not.
+     */
+    public long acquire(Policy policy, Object key) {
+        Bucket bucket = bucket(policy, key);
+        AtomicLong tat = bucket.tat;
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long newTat = (current == UNSET || current - now < 0 ? now : current) + policy.emissionIntervalNanos;
+            long ahead = newTat - now;
+            if (ahead > policy.burstOffsetNanos) {
+                policy.rejected.increment();
+                return -Math.max(1, ahead - policy.burstOffsetNanos);
+            }
+            if (tat.compareAndSet(current, newTat)) {
+                policy.allowed.increment();
+                if (counterStore != null) {
+                    bucket.unsynced.incrementAndGet();
+                }
+                return (policy.burstOffsetNanos - ahead) / policy.emissionIntervalNanos;
+            }
+        }
+    }
+
+    public static long ceilSeconds(long nanos) {
+        return Math.max(0, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    /**
+     * Drops full buckets. A request racing with the removal may have its token
+     * forgotten, which at worst lets one extra request through.
+     *
+     * When limits are shared, a bucket synced in the current window is kept: a new bucket
+     * for the same client would not know the window's cluster total, and would charge all
+     * of it, this node's own tokens included, as remote.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:30000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        long window = counterStore != null ? System.currentTimeMillis() / TimeUnit.MINUTES.toMillis(1) : UNSET;
+        int removed = 0;
+        for (Policy policy : policies) {
+            int before = policy.buckets.size();
+            policy.buckets.values().removeIf(bucket -> isFull(bucket.tat.get(), now) && bucket.unsynced.get() == 0
+                && bucket.syncedWindow != window);
+            removed += before - policy.buckets.size();
+            policy.evicting = false;
+        }
+        if (removed > 0) {
+            log.debug("Swept {} idle rate limit buckets", removed);
+        }
+    }
+
+    /**
+     * Pushes the tokens handed out since the last sync to the shared store and charges
+     * each bucket with what other nodes handed out to the same client.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.distributed.sync-interval-ms:1000}")
+    public void sync() {
+        if (counterStore == null) {
+            return;
+        }
+        long window = System.currentTimeMillis() / TimeUnit.MINUTES.toMillis(1);
+        Map<String, Map<String, Bucket>> pending = new HashMap<>();
+        List<RateLimitCounterStore.Counter> deltas = new ArrayList<>();
+        for (Policy policy : policies) {
+            for (Map.Entry<Object, Bucket> entry : policy.buckets.entrySet()) {
+                if (deltas.size() >= maxSyncBatch) {
+                    break;
+                }
+                Bucket bucket = entry.getValue();
+                String clientKey = clientKey(entry.getKey());
+                if (bucket.unsynced.get() == 0 || clientKey.length() > MAX_CLIENT_KEY_LENGTH) {
+                    continue;
+                }
+                long consumed = bucket.unsynced.getAndSet(0);
+                deltas.add(new RateLimitCounterStore.Counter(policy.name, clientKey, consumed));
+                pending.computeIfAbsent(policy.name, name -> new HashMap<>()).put(clientKey, bucket);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<RateLimitCounterStore.Counter> totals;
+        try {
+            totals = counterStore.add(window, deltas);
+        } catch (RuntimeException e) {
+            syncFailures.incrementAndGet();
+            log.warn("Rate limit sync failed, limiting locally until it recovers: {}", e.getMessage());
+            for (RateLimitCounterStore.Counter delta : deltas) {
+                pending.get(delta.policy()).get(delta.clientKey()).unsynced.addAndGet(delta.count());
+            }
+            return;
+        }
+
+        Map<String, Long> sent = new HashMap<>();
+        for (RateLimitCounterStore.Counter delta : deltas) {
+            sent.put(delta.policy() + '\u001F' + delta.clientKey(), delta.count());
+        }
+        long now = System.nanoTime();
+        for (RateLimitCounterStore.Counter total : totals) {
+            Bucket bucket = pending.getOrDefault(total.policy(), Map.of()).get(total.clientKey());
+            if (bucket == null) {
+                continue;
+            }
+            if (bucket.syncedWindow != window) {
+                bucket.syncedWindow = window;
+                bucket.clusterTotal = 0;
+            }
+            long ownDelta = sent.getOrDefault(total.policy() + '\u001F' + total.clientKey(), 0L);
+            long remote = total.count() - bucket.clusterTotal - ownDelta;
+            bucket.clusterTotal = total.count();
+            if (remote > 0) {
+                charge(policyNamed(total.policy()), bucket, remote, now);
+                remoteTokensCharged.addAndGet(remote);
+            }
+        }
+        syncs.incrementAndGet();
+        lastSyncMs = System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.distributed.cleanup-interval-ms:300000}")
+    public void deleteOldCounters() {
+        if (counterStore == null) {
+            return;
+        }
+        try {
+            counterStore.deleteBefore(System.currentTimeMillis() / TimeUnit.MINUTES.toMillis(1) - 2);
+        } catch (RuntimeException e) {
+            log.warn("Could not delete old rate limit counters: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "rateLimiter";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (Policy policy : policies) {
+            Map<String, Object> policyMetrics = new LinkedHashMap<>();
+            policyMetrics.put("perMinute", policy.limit);
+            policyMetrics.put("burst", policy.burst);
+            policyMetrics.put("buckets", policy.buckets.size());
+            policyMetrics.put("allowed", policy.allowed.sum());
+            policyMetrics.put("rejected", policy.rejected.sum());
+            metrics.put(policy.name, policyMetrics);
+        }
+        if (counterStore != null) {
+            Map<String, Object> distributed = new LinkedHashMap<>();
+            distributed.put("syncs", syncs.get());
+            distributed.put("syncFailures", syncFailures.get());
+            distributed.put("remoteTokensCharged", remoteTokensCharged.get());
+            distributed.put("lastSyncMs", lastSyncMs);
+            metrics.put("distributed", distributed);
+        }
+        return metrics;
+    }
+
+    private Bucket bucket(Policy policy, Object key) {
+        Bucket bucket = policy.buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (policy.buckets.size() >= maxKeys) {
+            evictStalest(policy);
+        }
+        return policy.buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    // Makes room for a new client by dropping the stalest of a few sampled buckets, preferring
+    // one whose tokens are synced and then the earliest TAT; a full bucket ends the search since
+    // it is indistinguishable from a new one. Scanning every client would put an O(clients)
+    // walk on the request path, and sharing one bucket would let a spray of new keys starve
+    // every other new client until the next sweep
+    private void evictStalest(Policy policy) {
+        if (!policy.evicting) {
+            policy.evicting = true;
+            log.warn("Rate limit policy {} is tracking {} clients; evicting the stalest", policy.name, maxKeys);
+        }
+        long now = System.nanoTime();
+        Map.Entry<Object, Bucket> stalest = null;
+        int sampled = 0;
+        for (Map.Entry<Object, Bucket> entry : policy.buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (stalest == null || isStaler(bucket, stalest.getValue())) {
+                stalest = entry;
+            }
+            if ((isFull(bucket.tat.get(), now) && bucket.unsynced.get() == 0) || ++sampled >= EVICTION_SAMPLE) {
+                break;
+            }
+        }
+        if (stalest != null) {
+            policy.buckets.remove(stalest.getKey(), stalest.getValue());
+        }
+    }
+
+    private static boolean isStaler(Bucket bucket, Bucket than) {
+        boolean synced = bucket.unsynced.get() == 0;
+        boolean thanSynced = than.unsynced.get() == 0;
+        if (synced != thanSynced) {
+            return synced;
+        }
+        long tat = bucket.tat.get();
+        long thanTat = than.tat.get();
+        return tat == UNSET || (thanTat != UNSET && tat - thanTat < 0);
+    }
+
+    // Moves the TAT forward by the tokens, capped at one period ahead so a client
+    // that was rejected elsewhere is not locked out for longer than the limit's window
+    private static void charge(Policy policy, Bucket bucket, long tokens, long now) {
+        long cap = now + Math.max(policy.burstOffsetNanos, TimeUnit.MINUTES.toNanos(1));
+        while (true) {
+            long current = bucket.tat.get();
+            long start = current == UNSET || current - now < 0 ? now : current;
+            long charged = Math.min(cap - start, tokens * policy.emissionIntervalNanos);
+            if (charged <= 0 || bucket.tat.compareAndSet(current, start + charged)) {
+                return;
+            }
+        }
+    }
+
+    private Policy policyNamed(String name) {
+        for (Policy policy : policies) {
+            if (policy.name.equals(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rate limit policy: " + name);
+    }
+
+    private static String clientKey(Object key) {
+        return key instanceof Long userId ? "user:" + userId : key.toString();
+    }
+
+    private static boolean isFull(long tat, long now) {
+        return tat == UNSET || tat - now <= 0;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.JWTConfigClass;
+import com.ecommerce.config.JwtUtils;
+import com.ecommerce.exception.UnauthorizedException;
+import com.ecommerce.model.RefreshToken;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.RefreshTokenRepository;
+import com.ecommerce.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. Clients get a random 256-bit value; only its
+ * SHA-256 is stored. Each refresh uses up the presented token and returns a new pair,
+ * and a token presented twice revokes its whole family (it was copied by someone).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtUtils jwtUtils;
+    private final JWTConfigClass jwtConfigClass;
+
+    public record TokenPair(User user, String accessToken, String refreshToken) {
+    }
+
+    /**
+     * Starts a new token family for a fresh login.
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user.getId(), UUID.randomUUID().toString());
+    }
+
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public TokenPair rotate(String rawToken) {
+        RefreshToken token = find(rawToken);
+        LocalDateTime now = LocalDateTime.now();
+
+        if (token.getRevokedAt() != null || token.getExpiresAt().isBefore(now)) {
+            throw new UnauthorizedException("Refresh token expired or revoked");
+        }
+        if (refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            log.warn("Refresh token reuse for user {}, revoked token family {}", token.getUserId(), token.getFamilyId());
+            throw new UnauthorizedException("Refresh token already used");
+        }
+
+        User user = userRepository.findById(token.getUserId())
+            .orElseThrow(() -> new UnauthorizedException("User not found"));
+        return new TokenPair(user, jwtUtils.generateJwtToken(user), issue(user.getId(), token.getFamilyId()));
+    }
+
+    /**
+     * Logs out the session the token belongs to.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        RefreshToken token = find(rawToken);
+        refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now());
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), familyId, userId, now,
+            now.plus(jwtConfigClass.getRefreshExpiration(), ChronoUnit.MILLIS)));
+        return rawToken;
+    }
+
+    private RefreshToken find(String rawToken) {
+        if (rawToken == null || rawToken.isEmpty()) {
+            throw new UnauthorizedException("Refresh token is required");
+        }
+        return refreshTokenRepository.findByTokenHash(hash(rawToken))
+            .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.service;
+
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloom filter of registered phone numbers and emails. A miss means the value is
+ * definitely not registered and needs no query; a hit still goes to the database.
+ *
+ * Built from users at startup and rebuilt periodically; in between, users created on
+ * this node are added directly and users created or changed on any node are picked up
+ * by polling users.updated_at, with an overlap so rows committed out of timestamp order
+ * are still seen. Deleted users and old emails stay in the filter until the next
+ * rebuild, which only costs a database check.
+ */
+@Service
+@Slf4j
+public class RegistrationFilter implements MetricsSource {
+
+    private static final long POLL_OVERLAP_SECONDS = 30;
+
+    private final UserRepository userRepository;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    // Guards filter swaps and lastPollAt; a lock rather than synchronized since it is held across queries
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+    private LocalDateTime lastPollAt;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong definiteMisses = new AtomicLong();
+    private final AtomicLong databaseChecks = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public RegistrationFilter(UserRepository userRepository,
+                              @Value("${registration-filter.expected-entries:200000}") int expectedEntries,
+                              @Value("${registration-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    /**
+     * False only if the phone number is definitely not registered. Until the first build
+     * completes every answer is true, so callers fall through to the database.
+     */
+    public boolean mightContainPhone(String phoneNumber) {
+        return mightContain("p:", phoneNumber);
+    }
+
+    public boolean mightContainEmail(String email) {
+        return mightContain("e:", email);
+    }
+
+    /**
+     * Reports what the database said after a filter hit, for the observed false-positive rate.
+     */
+    public void recordDatabaseAnswer(boolean exists) {
+        databaseChecks.incrementAndGet();
+        if (!exists) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    /**
+     * Adds a user created or changed on this node. Leaves the polling position alone, so
+     * users committed concurrently on other nodes are still picked up by the next refresh.
+     */
+    public void add(String phoneNumber, String email) {
+        lock.lock();
+        try {
+            addTo(filter, phoneNumber, email);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${registration-filter.rebuild-interval-ms:3600000}",
+               initialDelayString = "${registration-filter.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        LocalDateTime scanStartedAt = LocalDateTime.now();
+        List<Object[]> rows = userRepository.findRegistrationKeys();
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, rows.size() * 2), falsePositiveRate);
+        for (Object[] row : rows) {
+            addTo(rebuilt, (String) row[0], (String) row[1]);
+        }
+
+        lock.lock();
+        try {
+            filter = rebuilt;
+            lastPollAt = scanStartedAt;
+            // Users committed while the scan ran were added to the old filter; pick them up again
+            refresh();
+            ready = true;
+        } finally {
+            lock.unlock();
+        }
+        log.info("Built registration filter from {} users ({} KB)", rows.size(), rebuilt.memoryBytes() / 1024);
+    }
+
+    @Scheduled(fixedDelayString = "${registration-filter.refresh-interval-ms:30000}")
+    public void refresh() {
+        lock.lock();
+        try {
+            if (lastPollAt == null) {
+                // Not built yet; the first rebuild polls once it is
+                return;
+            }
+            LocalDateTime pollStartedAt = LocalDateTime.now();
+            for (Object[] row : userRepository.findRegistrationKeysChangedSince(lastPollAt.minusSeconds(POLL_OVERLAP_SECONDS))) {
+                addTo(filter, (String) row[0], (String) row[1]);
+            }
+            lastPollAt = pollStartedAt;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "registrationFilter";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        BloomFilter current = filter;
+        long checks = databaseChecks.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ready", ready);
+        metrics.put("memoryBytes", current.memoryBytes());
+        metrics.put("expectedFalsePositiveRate", current.expectedFalsePositiveRate());
+        metrics.put("observedFalsePositiveRate", checks > 0 ? (double) falsePositives.get() / checks : 0.0);
+        metrics.put("lookups", lookups.get());
+        metrics.put("definiteMisses", definiteMisses.get());
+        metrics.put("databaseChecks", checks);
+        return metrics;
+    }
+
+    private boolean mightContain(String prefix, String value) {
+        if (!ready || value == null) {
+            return true;
+        }
+        lookups.incrementAndGet();
+        if (filter.mightContain(prefix + value)) {
+            return true;
+        }
+        definiteMisses.incrementAndGet();
+        return false;
+    }
+
+    private static void addTo(BloomFilter target, String phoneNumber, String email) {
+        if (phoneNumber != null) {
+            target.put("p:" + phoneNumber);
+        }
+        if (email != null) {
+            target.put("e:" + email);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductsWithCartResponse;
+import com.ecommerce.dto.UserPreferencesDTO;
+import com.ecommerce.util.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the app's home-page bootstrap: the catalog plus, for a signed-in user, their
+ * cart, wishlist and preferences. The per-user parts are independent reads and are
+ * fetched in parallel; the catalog comes from the "catalog" cache.
+ */
+@Service
+@Slf4j
+public class StorefrontService {
+
+    private final ProductService productService;
+    private final CartService cartService;
+    private final WishlistService wishlistService;
+    private final UserPreferencesService userPreferencesService;
+    private final ExecutorService executor;
+
+    public StorefrontService(ProductService productService,
+                             CartService cartService,
+                             WishlistService wishlistService,
+                             UserPreferencesService userPreferencesService,
+                             @Value("${storefront.bootstrap-threads:8}") int threads,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.productService = productService;
+        this.cartService = cartService;
+        this.wishlistService = wishlistService;
+        this.userPreferencesService = userPreferencesService;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = VirtualThreads.executorOr(virtualThreads, () -> Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "storefront-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public ProductsWithCartResponse getProductsWithCart(Long userId) {
+        if (userId == null) {
+            return new ProductsWithCartResponse(productService.getCatalog(), List.of());
+        }
+
+        // The reads run on pool threads; keep their connections in the request's bulkhead partition
+        EndpointGroup group = Bulkheads.currentGroup();
+        CompletableFuture<List<CartItemDTO>> cart = CompletableFuture.supplyAsync(
+            () -> Bulkheads.callAs(group, () -> cartService.getCartItems(userId)), executor);
+        CompletableFuture<List<Long>> wishlist = CompletableFuture.supplyAsync(
+            () -> Bulkheads.callAs(group, () -> wishlistService.getWishlistProductIds(userId)), executor);
+        CompletableFuture<UserPreferencesDTO> preferences = CompletableFuture.supplyAsync(
+            () -> Bulkheads.callAs(group, () -> userPreferencesService.getPreferences(userId)), executor);
+
+        // The catalog is normally a cache hit, so it is read on the request thread while the others run
+        List<ProductDTO> products = productService.getCatalog();
+
+        try {
+            return new ProductsWithCartResponse(products, cart.join(), wishlist.join(), preferences.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
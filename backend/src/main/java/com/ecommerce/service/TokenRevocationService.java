@@ -0,0 +1,128 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.TokenRevocation;
+import com.ecommerce.repository.RefreshTokenRepository;
+import com.ecommerce.repository.TokenRevocationRepository;
+import com.ecommerce.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "was this access token revoked?" from memory. A revocation says that the
+ * user's access tokens issued before a point in time are no longer valid; revocations
+ * are written to token_revocations and every node polls new rows.
+ *
+ * The Bloom filter answers the common case (user never revoked) with a few bit reads;
+ * only users that hit the filter are checked against the exact userId -> notBefore map.
+ * Entries older than one access-token lifetime are pruned, since every token they
+ * could reject has expired.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    // Rows committed slightly out of created_at order are still seen by the next poll
+    private static final long POLL_OVERLAP_SECONDS = 30;
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long accessTokenTtlMs;
+    private final int expectedEntries;
+
+    private final Map<Long, Instant> notBefore = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastPollAt;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  RefreshTokenRepository refreshTokenRepository,
+                                  @Value("${jwt.expiration}") long accessTokenTtlMs,
+                                  @Value("${jwt.revocation.expected-entries:10000}") int expectedEntries) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.expectedEntries = expectedEntries;
+        this.filter = new BloomFilter(expectedEntries, 0.01);
+        this.lastPollAt = LocalDateTime.now().minus(accessTokenTtlMs, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * True if the user's tokens issued at issuedAt have been revoked. Never touches the database.
+     */
+    public boolean isRevoked(Long userId, Instant issuedAt) {
+        if (!filter.mightContain(userId)) {
+            return false;
+        }
+        Instant cutoff = notBefore.get(userId);
+        // A token issued in the cutoff's own millisecond may predate the revocation, so it is rejected too
+        return cutoff != null && (issuedAt == null || !issuedAt.isAfter(cutoff));
+    }
+
+    /**
+     * Revokes every access and refresh token the user holds right now.
+     */
+    @Transactional
+    public void revokeUser(Long userId) {
+        // Matches the millisecond precision of the iat_ms claim; tokens with only the
+        // second-precision iat count as issued at the start of their second
+        LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        tokenRevocationRepository.save(new TokenRevocation(userId, cutoff));
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+        apply(userId, cutoff);
+        log.info("Revoked tokens of user {} issued before {}", userId, cutoff);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval-ms:5000}", initialDelayString = "${jwt.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        LocalDateTime pollStartedAt = LocalDateTime.now();
+        int applied = 0;
+        for (TokenRevocation revocation : tokenRevocationRepository.findByCreatedAtGreaterThanEqualOrderByIdAsc(
+                lastPollAt.minusSeconds(POLL_OVERLAP_SECONDS))) {
+            apply(revocation.getUserId(), revocation.getNotBefore());
+            applied++;
+        }
+        lastPollAt = pollStartedAt;
+        if (applied > 0) {
+            log.debug("Applied {} token revocations", applied);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval-ms:600000}")
+    @Transactional
+    public void prune() {
+        Instant cutoff = Instant.now().minusMillis(accessTokenTtlMs);
+        synchronized (this) {
+            notBefore.values().removeIf(instant -> instant.isBefore(cutoff));
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, notBefore.size() * 2), 0.01);
+            for (Long userId : notBefore.keySet()) {
+                rebuilt.put(userId);
+            }
+            filter = rebuilt;
+        }
+
+        int revocations = tokenRevocationRepository.deleteByNotBeforeBefore(LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault()));
+        int refreshTokens = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (revocations > 0 || refreshTokens > 0) {
+            log.debug("Pruned {} token revocations and {} expired refresh tokens", revocations, refreshTokens);
+        }
+    }
+
+    // Synchronized with prune so a revocation cannot land in a filter that is being replaced
+    private synchronized void apply(Long userId, LocalDateTime cutoff) {
+        Instant instant = cutoff.atZone(ZoneId.systemDefault()).toInstant();
+        notBefore.merge(userId, instant, (current, added) -> added.isAfter(current) ? added : current);
+        filter.put(userId);
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.JwtUtils;
+import com.ecommerce.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies access tokens once and remembers the result. A token is parsed and its
+ * signature checked on first sight; the resulting principal is cached under the
+ * token's SHA-256 until the token expires, so later requests with the same token
+ * skip HMAC verification and claims parsing. Rejected tokens are never cached, and
+ * revocations are applied on every call.
+ */
+@Service
+@Slf4j
+public class TokenVerificationService {
+
+    private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+    private final int maxEntries;
+    private final Map<String, Principal> verified = new ConcurrentHashMap<>();
+
+    public TokenVerificationService(JwtUtils jwtUtils,
+                                    TokenRevocationService tokenRevocationService,
+                                    @Value("${jwt.verification-cache.max-entries:10000}") int maxEntries) {
+        this.jwtUtils = jwtUtils;
+        this.tokenRevocationService = tokenRevocationService;
+        this.maxEntries = maxEntries;
+    }
+
+    public record Principal(Long userId, User.Role role, Instant issuedAt, Instant expiresAt) {
+    }
+
+    public Optional<Principal> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String key = hash(token);
+        Instant now = Instant.now();
+        Principal cached = verified.get(key);
+        if (cached != null) {
+            if (cached.expiresAt().isAfter(now)) {
+                return accepted(cached);
+            }
+            verified.remove(key);
+            return Optional.empty();
+        }
+
+        Principal principal;
+        try {
+            Claims claims = jwtUtils.parseClaims(token);
+            principal = new Principal(
+                Long.valueOf(claims.getSubject()),
+                User.Role.valueOf(claims.get("role", String.class)),
+                JwtUtils.issuedAt(claims),
+                claims.getExpiration().toInstant());
+        } catch (JwtException | IllegalArgumentException | NullPointerException e) {
+            log.debug("Rejected access token: {}", e.getMessage());
+            return Optional.empty();
+        }
+
+        // When full, new tokens are still verified, just not remembered until the sweep frees space
+        if (verified.size() < maxEntries) {
+            verified.put(key, principal);
+        }
+        return accepted(principal);
+    }
+
+    // Revocation is checked on every request, cached or not, so it takes effect immediately
+    private Optional<Principal> accepted(Principal principal) {
+        if (tokenRevocationService.isRevoked(principal.userId(), principal.issuedAt())) {
+            return Optional.empty();
+        }
+        return Optional.of(principal);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.verification-cache.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        Instant now = Instant.now();
+        int before = verified.size();
+        verified.values().removeIf(principal -> !principal.expiresAt().isAfter(now));
+        if (before != verified.size()) {
+            log.debug("Swept {} expired tokens from the verification cache", before - verified.size());
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
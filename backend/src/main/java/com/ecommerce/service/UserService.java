@@ -5,7 +5,6 @@ import com.ecommerce.model.User;
 import com.ecommerce.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -17,7 +16,13 @@ public class UserService extends BaseService<User, Long> {
     private UserRepository userRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private RegistrationFilter registrationFilter;
 
     @Override
     protected JpaRepository<User, Long> getRepository() {
@@ -30,11 +35,14 @@ public class UserService extends BaseService<User, Long> {
     }
     
     public User createUser(User user) {
-        if (existsByPhoneNumber(user.getPhoneNumber())) {
+        // Authoritative check; the registration filter can lag behind other nodes
+        if (userRepository.existsByPhoneNumber(user.getPhoneNumber())) {
             throw new BadRequestException("Phone number already exists");
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return save(user);
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
+        User saved = save(user);
+        registrationFilter.add(saved.getPhoneNumber(), saved.getEmail());
+        return saved;
     }
     
     public Optional<User> findByPhoneNumber(String phoneNumber) {
@@ -43,36 +51,53 @@ public class UserService extends BaseService<User, Long> {
     
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        tokenRevocationService.revokeUser(id);
     }
 
     public boolean existsByPhoneNumber(String phoneNumber) {
-        return userRepository.existsByPhoneNumber(phoneNumber);
+        if (!registrationFilter.mightContainPhone(phoneNumber)) {
+            return false;
+        }
+        boolean exists = userRepository.existsByPhoneNumber(phoneNumber);
+        registrationFilter.recordDatabaseAnswer(exists);
+        return exists;
     }
     
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        if (!registrationFilter.mightContainEmail(email)) {
+            return false;
+        }
+        boolean exists = userRepository.existsByEmail(email);
+        registrationFilter.recordDatabaseAnswer(exists);
+        return exists;
     }
     
     public User updateUserRole(Long id, User.Role role) {
         User user = getById(id);
         user.setRole(role);
-        return save(user);
+        User saved = save(user);
+        // Tokens carry the role, so outstanding ones must not outlive the change
+        tokenRevocationService.revokeUser(id);
+        return saved;
     }
 
     public User updateProfile(Long id, User updatedUser) {
         User user = getById(id);
         user.setName(updatedUser.getName());
         user.setEmail(updatedUser.getEmail());
-        return save(user);
+        User saved = save(user);
+        registrationFilter.add(saved.getPhoneNumber(), saved.getEmail());
+        return saved;
     }
 
     public void changePassword(Long id, String oldPassword, String newPassword) {
         User user = getById(id);
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
             throw new BadRequestException("Current password is incorrect");
         }
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         save(user);
+        tokenRevocationService.revokeUser(id);
     }
 
     public User saveUser(User user) {
@@ -33,6 +33,10 @@ public class WishlistService {
             .collect(Collectors.toList());
     }
 
+    public List<Long> getWishlistProductIds(Long userId) {
+        return wishlistRepository.findProductIdsByUserId(userId);
+    }
+
     @Transactional
     public WishlistDTO addToWishlist(Long userId, Long productId) {
         User user = userRepository.findById(userId)
@@ -1,9 +1,12 @@
 package com.ecommerce.util;
 
 import com.ecommerce.model.User;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 @Component
 public class JWTTokenDetails {
     public Long getUserId() {
@@ -11,6 +14,17 @@ public class JWTTokenDetails {
         return user.getId();
     }
 
+    /**
+     * The current user's id, or empty on public endpoints called without a token.
+     */
+    public Optional<Long> findUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getDetails() instanceof User user) {
+            return Optional.of(user.getId());
+        }
+        return Optional.empty();
+    }
+
     public User.Role getUserRole() {
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getDetails();
         return user.getRole();
@@ -0,0 +1,105 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.model.User;
+import com.ecommerce.service.LoginThrottle;
+import com.ecommerce.service.PasswordHashingService;
+import com.ecommerce.service.TokenRevocationService;
+import com.ecommerce.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Changing or resetting a password must end every session opened with the old one:
+ * access tokens through the revocation cutoff and refresh tokens through their families.
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthControllerTest {
+
+    private static final String PHONE = "9876543210";
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @InjectMocks
+    private AuthController authController;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("Tester", PHONE, null, "old-hash");
+        user.setId(42L);
+    }
+
+    @Test
+    void changePasswordRevokesTheUsersTokens() {
+        when(userService.findByPhoneNumber(PHONE)).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches("old-password", "old-hash")).thenReturn(true);
+        when(passwordHashingService.encode("new-password")).thenReturn("new-hash");
+
+        AuthController.ChangePasswordRequest request = new AuthController.ChangePasswordRequest();
+        request.setPhoneNumber(PHONE);
+        request.setCurrentPassword("old-password");
+        request.setNewPassword("new-password");
+        ResponseEntity<?> response = authController.changePassword(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(user.getPassword()).isEqualTo("new-hash");
+        verify(userService).saveUser(user);
+        verify(tokenRevocationService).revokeUser(42L);
+    }
+
+    @Test
+    void wrongCurrentPasswordRevokesNothing() {
+        when(userService.findByPhoneNumber(PHONE)).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches("guess", "old-hash")).thenReturn(false);
+
+        AuthController.ChangePasswordRequest request = new AuthController.ChangePasswordRequest();
+        request.setPhoneNumber(PHONE);
+        request.setCurrentPassword("guess");
+        request.setNewPassword("new-password");
+        ResponseEntity<?> response = authController.changePassword(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(tokenRevocationService, never()).revokeUser(anyLong());
+    }
+
+    @Test
+    void resetPasswordRevokesTheUsersTokens() {
+        when(userService.findByPhoneNumber(PHONE)).thenReturn(Optional.of(user));
+        when(passwordHashingService.encode("new-password")).thenReturn("new-hash");
+
+        AuthController.ResetPasswordRequest request = new AuthController.ResetPasswordRequest();
+        request.setPhoneNumber(PHONE);
+        request.setNewPassword("new-password");
+        ResponseEntity<?> response = authController.resetPassword(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(user.getPassword()).isEqualTo("new-hash");
+        verify(userService).saveUser(user);
+        verify(tokenRevocationService).revokeUser(42L);
+    }
+}
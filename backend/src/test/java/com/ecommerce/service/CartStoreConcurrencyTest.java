@@ -0,0 +1,178 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CartItemDTO;
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ProductVariant;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent adds of the same line must end up as one cart_items row holding the sum of
+ * the quantities, both within one node (in-memory cart plus write-behind flush) and across
+ * nodes (the INSERT ... ON CONFLICT upsert on uk_cart_items_line).
+ */
+@SpringBootTest(properties = {
+    "data-loader.enabled=false",
+    // Flushes are triggered by the tests, not by the scheduler
+    "cart.store.flush-interval-ms=3600000"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class CartStoreConcurrencyTest {
+
+    private static final String SIZE = "250g";
+    private static final BigDecimal PRICE = new BigDecimal("120.00");
+    private static final Money LINE_PRICE = Money.of(PRICE);
+    // Unique per run, so the tests also work against a database that is reused between runs
+    private static final AtomicLong PHONE_NUMBERS = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setName("Kaju Katli");
+        product.setCategory("Sweets");
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSize(SIZE);
+        variant.setPrice(PRICE);
+        variant.setQuantity(1000);
+        product.getVariants().add(variant);
+        productId = productRepository.save(product).getId();
+
+        User user = new User("Cart Tester", String.valueOf(PHONE_NUMBERS.incrementAndGet()), null, "not-used");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void concurrentAddsOnOneNodeKeepOneRow() throws Exception {
+        int threads = 16;
+        int addsPerThread = 50;
+
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < addsPerThread; i++) {
+                cartStore.apply(userId, CartStore.Mutation.add(productId, SIZE, LINE_PRICE, 1));
+            }
+        });
+        cartStore.flush(userId);
+
+        List<CartItemDTO> items = cartStore.getItems(userId);
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).getQuantity()).isEqualTo(threads * addsPerThread);
+        assertRows(1, threads * addsPerThread);
+    }
+
+    @Test
+    void concurrentFirstAddsFromSeveralNodesMergeIntoOneRow() throws Exception {
+        // Each store stands in for a node; all of them load the empty cart first, so every
+        // add below is an insert that races on the unique key
+        int nodes = 8;
+        List<CartStore> stores = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            CartStore store = new CartStore(cartItemRepository, productRepository, jdbcTemplate, transactionTemplate,
+                10000, 2000, 30000, 600000);
+            assertThat(store.getItems(userId)).isEmpty();
+            stores.add(store);
+        }
+
+        runConcurrently(nodes, node -> stores.get(node).apply(userId, CartStore.Mutation.add(productId, SIZE, LINE_PRICE, 2)));
+
+        assertRows(1, nodes * 2);
+        Long rowId = jdbcTemplate.queryForObject("SELECT id FROM cart_items WHERE user_id = ?", Long.class, userId);
+        for (CartStore store : stores) {
+            List<CartItemDTO> items = store.getItems(userId);
+            assertThat(items).hasSize(1);
+            assertThat(items.get(0).getId()).isEqualTo(rowId);
+        }
+    }
+
+    private interface Task {
+        void run(int index) throws Exception;
+    }
+
+    private static void runConcurrently(int threads, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertRows(int expectedRows, int expectedQuantity) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+            "SELECT COUNT(*) AS line_count, COALESCE(SUM(quantity), 0) AS total_quantity FROM cart_items WHERE user_id = ?",
+            userId);
+        assertThat(((Number) row.get("line_count")).intValue()).isEqualTo(expectedRows);
+        assertThat(((Number) row.get("total_quantity")).intValue()).isEqualTo(expectedQuantity);
+    }
+}
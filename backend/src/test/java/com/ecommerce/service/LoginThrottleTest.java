@@ -0,0 +1,49 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+
+    private static final int MAX_FAILURES = 3;
+    private static final int MAX_ENTRIES = 100;
+
+    private final LoginThrottle throttle = new LoginThrottle(MAX_FAILURES, 900_000, 30_000, 900_000, MAX_ENTRIES);
+
+    @Test
+    void locksAfterMaxFailures() {
+        for (int i = 0; i < MAX_FAILURES - 1; i++) {
+            throttle.recordFailure("9876543210", true);
+        }
+        assertThat(throttle.lockedForMs("9876543210")).isZero();
+
+        throttle.recordFailure("9876543210", true);
+        assertThat(throttle.lockedForMs("9876543210")).isPositive();
+
+        throttle.recordSuccess("9876543210");
+        assertThat(throttle.lockedForMs("9876543210")).isZero();
+    }
+
+    @Test
+    void sprayOfUnknownNumbersDoesNotLiftALockout() {
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            throttle.recordFailure("9876543210", true);
+        }
+        for (int i = 0; i < MAX_ENTRIES * 10; i++) {
+            throttle.recordFailure(String.valueOf(7_000_000_000L + i), false);
+        }
+        assertThat(throttle.lockedForMs("9876543210")).isPositive();
+    }
+
+    @Test
+    void sprayOfRegisteredNumbersEvictsOnlyUnlockedEntries() {
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            throttle.recordFailure("9876543210", true);
+        }
+        for (int i = 0; i < MAX_ENTRIES * 10; i++) {
+            throttle.recordFailure(String.valueOf(7_000_000_000L + i), true);
+        }
+        assertThat(throttle.lockedForMs("9876543210")).isPositive();
+    }
+}
@@ -0,0 +1,182 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.PhoneVerificationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * PhoneVerificationClient against a local stub provider: host allow-list, timeouts,
+ * result caching and the circuit breaker's CLOSED -> OPEN -> HALF_OPEN transitions.
+ */
+class PhoneVerificationClientTest {
+
+    private static final String VERIFIED_BODY = "{\"user_phone_number\":\"9876543210\",\"user_country_code\":\"+91\"}";
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MS = 300;
+    private static final long REQUEST_TIMEOUT_MS = 400;
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+    private volatile int failingStatus = 503;
+    private PhoneVerificationClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", exchange -> respond(exchange, 200, VERIFIED_BODY));
+        server.createContext("/fail", exchange -> respond(exchange, failingStatus, ""));
+        server.createContext("/slow", exchange -> {
+            try {
+                releaseSlow.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, VERIFIED_BODY);
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        client = new PhoneVerificationClient(new ObjectMapper(), List.of("127.0.0.1"), true,
+            1000, REQUEST_TIMEOUT_MS, 4, FAILURE_THRESHOLD, OPEN_MS, 60000, 100, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlow.countDown();
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesOnlyAllowedHostsAndSchemes() {
+        PhoneVerificationClient httpsOnly = new PhoneVerificationClient(new ObjectMapper(), List.of("127.0.0.1"), false,
+            1000, REQUEST_TIMEOUT_MS, 1, FAILURE_THRESHOLD, OPEN_MS, 60000, 100, false);
+        try {
+            assertThatThrownBy(() -> httpsOnly.verify(baseUrl + "/ok"))
+                .isInstanceOf(PhoneVerificationException.class)
+                .hasMessage("Verification URL not allowed");
+        } finally {
+            httpsOnly.shutdown();
+        }
+
+        assertThatThrownBy(() -> client.verify("http://localhost:" + server.getAddress().getPort() + "/ok"))
+            .hasMessage("Verification URL not allowed");
+        assertThatThrownBy(() -> client.verify("file:///etc/passwd"))
+            .hasMessage("Verification URL not allowed");
+        assertThatThrownBy(() -> client.verify("not a url"))
+            .hasMessage("Invalid verification URL");
+        assertThat(hits).hasValue(0);
+    }
+
+    @Test
+    void cachesSuccessfulResults() {
+        assertThat(client.verify(baseUrl + "/ok").getUserPhoneNumber()).isEqualTo("9876543210");
+        assertThat(client.verify(baseUrl + "/ok").getUserPhoneNumber()).isEqualTo("9876543210");
+        assertThat(hits).hasValue(1);
+    }
+
+    @Test
+    void boundsSlowCallsByTheRequestTimeout() {
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.verify(baseUrl + "/slow"))
+            .isInstanceOf(PhoneVerificationException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(REQUEST_TIMEOUT_MS + 1500);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndFailsFast() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> client.verify(baseUrl + "/fail"))
+                .hasMessage("Verification provider returned 503");
+        }
+        assertThat(hits).hasValue(FAILURE_THRESHOLD);
+
+        assertThatThrownBy(() -> client.verify(baseUrl + "/ok"))
+            .hasMessage("Verification service unavailable");
+        assertThat(hits).hasValue(FAILURE_THRESHOLD);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() {
+        failingStatus = 410;
+        for (int i = 0; i < FAILURE_THRESHOLD + 2; i++) {
+            assertThatThrownBy(() -> client.verify(baseUrl + "/fail"))
+                .hasMessage("Verification failed with status 410");
+        }
+        assertThat(client.verify(baseUrl + "/ok").getUserPhoneNumber()).isEqualTo("9876543210");
+    }
+
+    @Test
+    void failedTrialCallReopensTheBreaker() throws InterruptedException {
+        openBreaker();
+        Thread.sleep(OPEN_MS + 100);
+
+        assertThatThrownBy(() -> client.verify(baseUrl + "/fail"))
+            .hasMessage("Verification provider returned 503");
+        int hitsAfterTrial = hits.get();
+        assertThatThrownBy(() -> client.verify(baseUrl + "/ok"))
+            .hasMessage("Verification service unavailable");
+        assertThat(hits).hasValue(hitsAfterTrial);
+    }
+
+    @Test
+    void successfulTrialCallClosesTheBreaker() throws InterruptedException {
+        openBreaker();
+        Thread.sleep(OPEN_MS + 100);
+
+        assertThat(client.verify(baseUrl + "/ok").getUserPhoneNumber()).isEqualTo("9876543210");
+        assertThatThrownBy(() -> client.verify(baseUrl + "/fail"))
+            .hasMessage("Verification provider returned 503");
+        assertThat(client.verify(baseUrl + "/ok?again").getUserPhoneNumber()).isEqualTo("9876543210");
+    }
+
+    @Test
+    void halfOpenLetsOnlyOneTrialCallThrough() throws Exception {
+        openBreaker();
+        Thread.sleep(OPEN_MS + 100);
+
+        CompletableFuture<?> trial = client.verifyAsync(baseUrl + "/slow");
+        assertThatThrownBy(() -> client.verify(baseUrl + "/ok"))
+            .hasMessage("Verification service unavailable");
+
+        releaseSlow.countDown();
+        assertThat(trial).succeedsWithin(5, TimeUnit.SECONDS);
+        assertThat(client.verify(baseUrl + "/ok").getUserPhoneNumber()).isEqualTo("9876543210");
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> client.verify(baseUrl + "/fail"))
+                .isInstanceOf(PhoneVerificationException.class);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        hits.incrementAndGet();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+}
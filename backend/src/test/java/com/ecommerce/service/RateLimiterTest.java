@@ -0,0 +1,91 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimiterTest {
+
+    @Test
+    void sweptBucketDoesNotChargeTheNodesOwnTokensAsRemote() throws InterruptedException {
+        // One node against an in-memory store: every token in the shared total is this node's own
+        RateLimiter limiter = limiter(60_000, 100, new InMemoryCounterStore());
+        RateLimiter.Policy policy = limiter.policyFor("GET", "/api/products");
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.acquire(policy, "10.0.0.1")).isGreaterThanOrEqualTo(0);
+        }
+        limiter.sync();
+        // At 1000 tokens a second the bucket is full again after a few milliseconds
+        Thread.sleep(20);
+        limiter.sweep();
+
+        assertThat(limiter.acquire(policy, "10.0.0.1")).isGreaterThanOrEqualTo(0);
+        limiter.sync();
+
+        assertThat(distributed(limiter).get("remoteTokensCharged")).isEqualTo(0L);
+    }
+
+    @Test
+    void newClientsPastMaxKeysGetTheirOwnBucket() {
+        RateLimiter limiter = limiter(60, 3, null);
+        RateLimiter.Policy policy = limiter.policyFor("GET", "/api/products");
+
+        // A spray of keys that each use up their burst fills the table
+        for (int i = 0; i < 3; i++) {
+            drain(limiter, policy, "10.0.1." + i);
+        }
+        // Each new client still gets a full burst of its own instead of sharing one
+        drain(limiter, policy, "10.0.0.1");
+        drain(limiter, policy, "10.0.0.2");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> catalog = (Map<String, Object>) limiter.metrics().get("catalog");
+        assertThat(catalog.get("buckets")).isEqualTo(3);
+    }
+
+    private static void drain(RateLimiter limiter, RateLimiter.Policy policy, String client) {
+        for (int i = 0; i < policy.getBurst(); i++) {
+            assertThat(limiter.acquire(policy, client)).isGreaterThanOrEqualTo(0);
+        }
+        assertThat(limiter.acquire(policy, client)).isNegative();
+    }
+
+    @SuppressWarnings("unchecked")
+    static RateLimiter limiter(int perMinute, int maxKeys, RateLimitCounterStore store) {
+        ObjectProvider<RateLimitCounterStore> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(store);
+        return new RateLimiter(perMinute, 5, perMinute, 5, perMinute, 5, maxKeys, 5000, provider);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> distributed(RateLimiter limiter) {
+        return (Map<String, Object>) limiter.metrics().get("distributed");
+    }
+
+    private static final class InMemoryCounterStore implements RateLimitCounterStore {
+        private final Map<String, Long> counters = new HashMap<>();
+
+        @Override
+        public synchronized List<Counter> add(long window, List<Counter> deltas) {
+            List<Counter> totals = new ArrayList<>();
+            for (Counter delta : deltas) {
+                long total = counters.merge(window + "/" + delta.policy() + "/" + delta.clientKey(), delta.count(), Long::sum);
+                totals.add(new Counter(delta.policy(), delta.clientKey(), total));
+            }
+            return totals;
+        }
+
+        @Override
+        public void deleteBefore(long window) {
+        }
+    }
+}
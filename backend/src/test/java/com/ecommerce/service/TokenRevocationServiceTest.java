@@ -0,0 +1,64 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.TokenRevocation;
+import com.ecommerce.repository.RefreshTokenRepository;
+import com.ecommerce.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TokenRevocationService(tokenRevocationRepository, refreshTokenRepository, 900_000, 1000);
+    }
+
+    @Test
+    void revokeUserRevokesEveryRefreshTokenAndEarlierAccessTokens() {
+        Instant issuedBefore = Instant.now().minusSeconds(5);
+
+        service.revokeUser(42L);
+
+        verify(tokenRevocationRepository).save(any());
+        verify(refreshTokenRepository).revokeAllForUser(eq(42L), any());
+        assertThat(service.isRevoked(42L, issuedBefore)).isTrue();
+        assertThat(service.isRevoked(7L, issuedBefore)).isFalse();
+    }
+
+    @Test
+    void tokensIssuedEarlierInTheCutoffsSecondAreRevoked() {
+        LocalDateTime cutoff = LocalDateTime.now().withNano(500_000_000);
+        when(tokenRevocationRepository.findByCreatedAtGreaterThanEqualOrderByIdAsc(any()))
+            .thenReturn(List.of(new TokenRevocation(42L, cutoff)));
+
+        service.poll();
+
+        Instant cutoffInstant = cutoff.atZone(ZoneId.systemDefault()).toInstant();
+        assertThat(service.isRevoked(42L, cutoffInstant.minusMillis(300))).isTrue();
+        assertThat(service.isRevoked(42L, cutoffInstant)).isTrue();
+        assertThat(service.isRevoked(42L, cutoffInstant.plusMillis(1))).isFalse();
+    }
+}
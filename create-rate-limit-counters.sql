@@ -0,0 +1,14 @@
+-- Shared counters for cluster-wide rate limiting (rate-limit.distributed.enabled=true).
+-- Each node upserts the tokens it handed out per (policy, client, minute) and charges
+-- what other nodes handed out to its local buckets.
+
+CREATE TABLE IF NOT EXISTS rate_limit_counters (
+    id BIGSERIAL PRIMARY KEY,
+    policy VARCHAR(32) NOT NULL,
+    client_key VARCHAR(64) NOT NULL,
+    window_start BIGINT NOT NULL,
+    consumed BIGINT NOT NULL,
+    CONSTRAINT uk_rate_limit_counters UNIQUE (policy, client_key, window_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_counters_window ON rate_limit_counters (window_start);
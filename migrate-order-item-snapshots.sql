@@ -0,0 +1,24 @@
+-- Move frozen product details of existing order items into product_snapshots
+-- Run after the backend has started once (it creates product_snapshots and order_items.product_snapshot_id)
+
+-- The snapshot id must match ProductSnapshot.hashOf in the backend
+UPDATE order_items
+SET product_snapshot_id = encode(sha256(convert_to(concat_ws(chr(31),
+        coalesce(product_name, ''), coalesce(product_description, ''),
+        coalesce(product_image_url, ''), coalesce(product_category, '')), 'UTF8')), 'hex')
+WHERE product_snapshot_id IS NULL;
+
+INSERT INTO product_snapshots (id, name, description, image_url, category, created_at)
+SELECT DISTINCT ON (product_snapshot_id)
+       product_snapshot_id, product_name, product_description, product_image_url, product_category, CURRENT_TIMESTAMP
+FROM order_items
+WHERE product_name IS NOT NULL OR product_description IS NOT NULL
+   OR product_image_url IS NOT NULL OR product_category IS NOT NULL
+ON CONFLICT (id) DO NOTHING;
+
+-- Drop the duplicated copies now that every item references a snapshot
+UPDATE order_items
+SET product_name = NULL, product_description = NULL, product_image_url = NULL, product_category = NULL
+WHERE product_snapshot_id IN (SELECT id FROM product_snapshots);
+
+VACUUM FULL order_items;
@@ -0,0 +1,60 @@
+#!/bin/bash
+# Side-by-side load test of the blocking (JPA) and reactive (R2DBC) catalog reads.
+# Start the backend with REACTIVE_CATALOG=true, then run:
+#   scripts/bench/catalog-load.sh [base-url] [duration] [concurrency levels...]
+# Requires hey (https://github.com/rakyll/hey). Rate limits apply per client IP, so
+# raise rate-limit.catalog.* (or run from several hosts) when benchmarking. The store
+# endpoints need a signed-in user: set TOKEN to a JWT or they are skipped.
+# /api/reactive runs in its own endpoint group; its admission limits are
+# bulkhead.reactive.* and concurrency-limit.reactive.*, its query limit
+# catalog.reactive.max-size. Run the load generator on a separate host: on a shared
+# CPU the adaptive limit backs off because of the generator's own load.
+
+BASE_URL=${1:-http://localhost:8080}
+DURATION=${2:-30s}
+shift 2 2>/dev/null
+LEVELS=${@:-50 200 1000 2000}
+
+print_status() { echo -e "\033[0;34m[INFO]\033[0m $1"; }
+print_error() { echo -e "\033[0;31m[ERROR]\033[0m $1"; }
+
+if ! command -v hey &> /dev/null; then
+    print_error "hey not found. Install it with: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+if ! curl -sf "$BASE_URL/api/reactive/products/categories" > /dev/null; then
+    print_error "Reactive catalog not reachable at $BASE_URL/api/reactive (is REACTIVE_CATALOG=true?)"
+    exit 1
+fi
+
+run() {
+    local label=$1 url=$2 concurrency=$3 accept=$4
+    local auth=()
+    [ -n "$TOKEN" ] && auth=(-H "Authorization: Bearer $TOKEN")
+    local out
+    out=$(hey -z "$DURATION" -c "$concurrency" -H "Accept: $accept" "${auth[@]}" "$url")
+    local rps=$(echo "$out" | awk '/Requests\/sec/ {print $2}')
+    local p50=$(echo "$out" | awk '/50% in/ {print $3}')
+    local p99=$(echo "$out" | awk '/99% in/ {print $3}')
+    local errors=$(echo "$out" | awk '/\[[0-9]+\]/ && !/\[200\]/ {sum += $2} END {print sum + 0}')
+    printf "%-28s %6s %10s %10s %10s %8s\n" "$label" "$concurrency" "$rps" "$p50" "$p99" "$errors"
+}
+
+print_status "Benchmarking for $DURATION per run against $BASE_URL"
+printf "%-28s %6s %10s %10s %10s %8s\n" "endpoint" "conc" "req/s" "p50(s)" "p99(s)" "non-200"
+for c in $LEVELS; do
+    run "jpa /products/available" "$BASE_URL/api/products/available" "$c" "application/json"
+    run "r2dbc /products/available" "$BASE_URL/api/reactive/products/available" "$c" "application/json"
+    run "r2dbc ndjson" "$BASE_URL/api/reactive/products/available" "$c" "application/x-ndjson"
+    if [ -n "$TOKEN" ]; then
+        run "jpa /stores" "$BASE_URL/api/stores" "$c" "application/json"
+        run "r2dbc /stores" "$BASE_URL/api/reactive/stores" "$c" "application/json"
+    fi
+done
+
+print_status "Thread and pool usage after the runs (admin token in ADMIN_TOKEN):"
+if [ -n "$ADMIN_TOKEN" ]; then
+    curl -s -H "Authorization: Bearer $ADMIN_TOKEN" "$BASE_URL/api/admin/metrics"
+    echo
+fi
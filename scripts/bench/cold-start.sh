@@ -0,0 +1,80 @@
+#!/bin/bash
+# Cold-start time and memory of the JVM jar against the native executable, locally.
+# Build both first (from backend/):
+#   mvn -DskipTests package                       -> target/ecommerce-backend-1.0.0.jar
+#   mvn -Pnative -DskipTests native:compile       -> target/ecommerce-backend
+# Point DATABASE_URL/DB_USERNAME/DB_PASSWORD at any Postgres, for example
+#   docker run -d -p 5432:5432 -e POSTGRES_DB=ecommerce_db -e POSTGRES_PASSWORD=root postgres:15
+# Usage: scripts/bench/cold-start.sh [runs] [jvm|native|both]
+
+RUNS=${1:-5}
+MODE=${2:-both}
+PORT=${PORT:-18080}
+BACKEND_DIR="$(cd "$(dirname "$0")/../../backend" && pwd)"
+JAR="$BACKEND_DIR/target/ecommerce-backend-1.0.0.jar"
+NATIVE="$BACKEND_DIR/target/ecommerce-backend"
+TIMEOUT_S=${TIMEOUT_S:-120}
+
+print_status() { echo -e "\033[0;34m[INFO]\033[0m $1"; }
+print_error() { echo -e "\033[0;31m[ERROR]\033[0m $1"; }
+
+now_ms() { date +%s%3N; }
+
+rss_kb() { awk '/VmRSS/ {print $2}' "/proc/$1/status" 2>/dev/null; }
+
+# Starts the command, waits for /health to answer 200 and prints "<ms> <rss-kb>"
+measure() {
+    local start=$(now_ms)
+    SERVER_PORT=$PORT "$@" > /tmp/cold-start-$$.log 2>&1 &
+    local pid=$!
+    local ready=""
+    while [ $(( $(now_ms) - start )) -lt $(( TIMEOUT_S * 1000 )) ]; do
+        if curl -sf "http://localhost:$PORT/health" > /dev/null 2>&1; then
+            ready=$(( $(now_ms) - start ))
+            break
+        fi
+        if ! kill -0 $pid 2>/dev/null; then
+            break
+        fi
+        sleep 0.05
+    done
+    local rss=$(rss_kb $pid)
+    kill $pid 2>/dev/null
+    wait $pid 2>/dev/null
+    if [ -z "$ready" ]; then
+        print_error "Did not become healthy; see /tmp/cold-start-$$.log" >&2
+        return 1
+    fi
+    echo "$ready $rss"
+}
+
+bench() {
+    local label=$1
+    shift
+    local times=() rsses=()
+    for i in $(seq 1 "$RUNS"); do
+        local result
+        result=$(measure "$@") || exit 1
+        times+=("${result% *}")
+        rsses+=("${result#* }")
+        print_status "$label run $i: ${result% *} ms to healthy, RSS $(( ${result#* } / 1024 )) MB"
+    done
+    local median_ms=$(printf "%s\n" "${times[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    local median_rss=$(printf "%s\n" "${rsses[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    printf "%-8s median %6s ms to healthy, RSS %5s MB\n" "$label" "$median_ms" "$(( median_rss / 1024 ))" >> /tmp/cold-start-summary-$$
+}
+
+rm -f /tmp/cold-start-summary-$$
+if [ "$MODE" = "jvm" ] || [ "$MODE" = "both" ]; then
+    [ -f "$JAR" ] || { print_error "$JAR not found"; exit 1; }
+    # Same heap ceiling as the 512 MB Lambda
+    bench jvm java -Xmx400m -jar "$JAR"
+fi
+if [ "$MODE" = "native" ] || [ "$MODE" = "both" ]; then
+    [ -x "$NATIVE" ] || { print_error "$NATIVE not found"; exit 1; }
+    bench native "$NATIVE" -Xmx400m
+fi
+
+echo
+cat /tmp/cold-start-summary-$$
+rm -f /tmp/cold-start-summary-$$
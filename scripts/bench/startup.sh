@@ -0,0 +1,108 @@
+#!/bin/bash
+# Startup time of the JVM build in its three modes: default, the fast-startup profile and
+# an AppCDS archive (trained here the same way the Dockerfile does). Fails when a median
+# exceeds MAX_STARTUP_MS, so it can guard against startup regressions.
+# Build first (from backend/): mvn -DskipTests package
+# Point DATABASE_URL/DB_USERNAME/DB_PASSWORD at any Postgres, for example
+#   docker run -d -p 5432:5432 -e POSTGRES_DB=ecommerce_db -e POSTGRES_PASSWORD=root postgres:15
+# Usage: scripts/bench/startup.sh [runs] [default|lazy|cds|all]
+
+RUNS=${1:-5}
+MODE=${2:-all}
+PORT=${PORT:-18080}
+BACKEND_DIR="$(cd "$(dirname "$0")/../../backend" && pwd)"
+JAR="$BACKEND_DIR/target/ecommerce-backend-1.0.0.jar"
+WORK_DIR=${WORK_DIR:-/tmp/startup-bench}
+TIMEOUT_S=${TIMEOUT_S:-120}
+MAX_STARTUP_MS=${MAX_STARTUP_MS:-}
+
+print_status() { echo -e "\033[0;34m[INFO]\033[0m $1"; }
+print_error() { echo -e "\033[0;31m[ERROR]\033[0m $1"; }
+
+now_ms() { date +%s%3N; }
+
+median() { sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}'; }
+
+# Starts the command, waits for /health to answer 200 and prints "<ms-to-healthy> <ms-reported-by-spring>"
+measure() {
+    local log=/tmp/startup-$$.log
+    local start=$(now_ms)
+    SERVER_PORT=$PORT "$@" > $log 2>&1 &
+    local pid=$!
+    local ready=""
+    while [ $(( $(now_ms) - start )) -lt $(( TIMEOUT_S * 1000 )) ]; do
+        if curl -sf "http://localhost:$PORT/health" > /dev/null 2>&1; then
+            ready=$(( $(now_ms) - start ))
+            break
+        fi
+        if ! kill -0 $pid 2>/dev/null; then
+            break
+        fi
+        sleep 0.05
+    done
+    kill $pid 2>/dev/null
+    wait $pid 2>/dev/null
+    if [ -z "$ready" ]; then
+        print_error "Did not become healthy; see $log" >&2
+        return 1
+    fi
+    local reported=$(sed -n 's/.*Started EcommerceApplication in \([0-9.]*\) seconds.*/\1/p' $log | awk '{printf "%d", $1 * 1000}')
+    echo "$ready ${reported:-0}"
+}
+
+bench() {
+    local label=$1
+    shift
+    local times=() reported=()
+    for i in $(seq 1 "$RUNS"); do
+        local result
+        result=$(measure "$@") || exit 1
+        times+=("${result% *}")
+        reported+=("${result#* }")
+        print_status "$label run $i: ${result% *} ms to healthy, Spring reported ${result#* } ms"
+    done
+    local median_ms=$(printf "%s\n" "${times[@]}" | median)
+    local median_reported=$(printf "%s\n" "${reported[@]}" | median)
+    printf "%-8s median %6s ms to healthy, %6s ms reported\n" "$label" "$median_ms" "$median_reported" >> /tmp/startup-summary-$$
+    if [ -n "$MAX_STARTUP_MS" ] && [ "$median_ms" -gt "$MAX_STARTUP_MS" ]; then
+        echo "$label" >> /tmp/startup-failed-$$
+    fi
+}
+
+# Unpacks the boot jar into application.jar + lib/ and records the class list of a startup
+# that stops after the context refresh; the classpath must match between training and runs
+train_cds() {
+    rm -rf "$WORK_DIR" && mkdir -p "$WORK_DIR/boot"
+    (cd "$WORK_DIR/boot" && unzip -q "$JAR" \
+        && mv BOOT-INF/lib "$WORK_DIR/lib" \
+        && cd BOOT-INF/classes && zip -qr "$WORK_DIR/application.jar" .) || { print_error "Could not unpack $JAR"; exit 1; }
+    rm -rf "$WORK_DIR/boot"
+    print_status "Training CDS archive in $WORK_DIR"
+    (cd "$WORK_DIR" && java -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh \
+        -Dspring.jpa.hibernate.ddl-auto=none -Dlogging.level.root=WARN \
+        -cp "application.jar:lib/*" com.ecommerce.EcommerceApplication > /dev/null 2>&1)
+    [ -f "$WORK_DIR/app.jsa" ] || { print_error "CDS training did not produce an archive"; exit 1; }
+}
+
+[ -f "$JAR" ] || { print_error "$JAR not found"; exit 1; }
+rm -f /tmp/startup-summary-$$ /tmp/startup-failed-$$
+if [ "$MODE" = "default" ] || [ "$MODE" = "all" ]; then
+    bench default java -Xmx400m -jar "$JAR"
+fi
+if [ "$MODE" = "lazy" ] || [ "$MODE" = "all" ]; then
+    bench lazy java -Xmx400m -Dspring.profiles.active=fast-startup -jar "$JAR"
+fi
+if [ "$MODE" = "cds" ] || [ "$MODE" = "all" ]; then
+    train_cds
+    bench cds java -Xmx400m -XX:SharedArchiveFile="$WORK_DIR/app.jsa" -Xshare:auto \
+        -cp "$WORK_DIR/application.jar:$WORK_DIR/lib/*" com.ecommerce.EcommerceApplication
+fi
+
+echo
+cat /tmp/startup-summary-$$
+rm -f /tmp/startup-summary-$$
+if [ -f /tmp/startup-failed-$$ ]; then
+    print_error "Median startup above ${MAX_STARTUP_MS} ms: $(paste -sd, /tmp/startup-failed-$$)"
+    rm -f /tmp/startup-failed-$$
+    exit 1
+fi